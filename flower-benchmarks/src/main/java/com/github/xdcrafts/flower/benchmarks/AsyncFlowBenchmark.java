@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.impl.actions.AwaitAction;
+import com.github.xdcrafts.flower.core.impl.flows.AsyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.SyncFlow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
+
+/**
+ * AsyncFlow.act followed by AwaitAction, as it is used inside of synchronous flows.
+ * Fused flow runs all steps in one executor task, unfused one submits a task per step.
+ * Context is shared between caller and executor threads, so it has to be a concurrent map.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class AsyncFlowBenchmark {
+
+    @Param({"1", "10"})
+    private int actions;
+
+    private ExecutorService executorService;
+    private SyncFlow flow;
+    private SyncFlow fusedFlow;
+
+    /**
+     * Builds sync flow that awaits async flow of 'actions' steps.
+     */
+    @Setup
+    public void setup() {
+        this.executorService = Executors.newFixedThreadPool(2);
+        final List<Action> steps = new ArrayList<>(this.actions);
+        for (int i = 0; i < this.actions; i++) {
+            final String key = "step-" + i;
+            steps.add(Action.action(key, ctx -> {
+                ctx.put(key, Boolean.TRUE);
+                return ctx;
+            }));
+        }
+        final AsyncFlow asyncFlow = new AsyncFlow(
+            "asyncFlow",
+            steps,
+            with(new HashMap<String, Object>())
+                .assoc(AsyncFlow.EXECUTOR_SERVICE, this.executorService)
+                .value()
+        );
+        final AsyncFlow fusedAsyncFlow = new AsyncFlow(
+            "fusedAsyncFlow",
+            steps,
+            with(new HashMap<String, Object>())
+                .assoc(AsyncFlow.EXECUTOR_SERVICE, this.executorService)
+                .assoc(AsyncFlow.FUSED, true)
+                .value()
+        );
+        this.flow = new SyncFlow("flow", Arrays.asList(asyncFlow, new AwaitAction("await", 1000)));
+        this.fusedFlow = new SyncFlow("fusedFlow", Arrays.asList(fusedAsyncFlow, new AwaitAction("await", 1000)));
+    }
+
+    /**
+     * Shuts executor down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.executorService.shutdownNow();
+    }
+
+    /**
+     * Schedules async flow and blocks until it is completed.
+     */
+    @Benchmark
+    public Map actAndAwait() {
+        return this.flow.apply(new ConcurrentHashMap());
+    }
+
+    /**
+     * Schedules fused async flow and blocks until it is completed.
+     */
+    @Benchmark
+    public Map fusedActAndAwait() {
+        return this.fusedFlow.apply(new ConcurrentHashMap());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of benchmarks jar.
+ * Runs benchmarks in throughput and average time modes with gc profiler attached
+ * and writes json result, any standard JMH command line option can be used to override defaults.
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT = "flower-benchmarks.json";
+
+    private BenchmarkRunner() {
+        // Nothing
+    }
+
+    /**
+     * Runs benchmarks.
+     * @param args JMH command line options
+     * @throws RunnerException if benchmarks run failed
+     * @throws CommandLineOptionException if command line options are invalid
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final ChainedOptionsBuilder builder = new OptionsBuilder()
+            .parent(commandLineOptions)
+            .addProfiler(GCProfiler.class);
+        if (!commandLineOptions.getTimeUnit().hasValue()) {
+            builder.timeUnit(TimeUnit.MICROSECONDS);
+        }
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT);
+        }
+        if (commandLineOptions.getBenchModes().isEmpty()) {
+            builder.mode(Mode.Throughput).mode(Mode.AverageTime);
+        }
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.tools.map.ContextMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * ContextMap compared to HashMap on context sized maps.
+ */
+@State(Scope.Benchmark)
+public class ContextMapBenchmark {
+
+    @Param({"5", "15", "30"})
+    private int size;
+
+    @Param({"hash", "context"})
+    private String type;
+
+    private Supplier<Map<String, Object>> factory;
+    private String[] keys;
+    private Map<String, Object> map;
+
+    /**
+     * Fills map of chosen type with 'size' entries.
+     */
+    @Setup
+    public void setup() {
+        this.factory = "context".equals(this.type) ? ContextMap::new : HashMap::new;
+        this.keys = new String[this.size];
+        this.map = this.factory.get();
+        for (int i = 0; i < this.size; i++) {
+            this.keys[i] = "key" + i;
+            this.map.put(this.keys[i], i);
+        }
+    }
+
+    /**
+     * Looks up every key.
+     */
+    @Benchmark
+    public int get() {
+        int sum = 0;
+        for (String key : this.keys) {
+            sum += (Integer) this.map.get(key);
+        }
+        return sum;
+    }
+
+    /**
+     * Builds new map with every key.
+     */
+    @Benchmark
+    public Map<String, Object> put() {
+        final Map<String, Object> result = this.factory.get();
+        for (int i = 0; i < this.keys.length; i++) {
+            result.put(this.keys[i], i);
+        }
+        return result;
+    }
+
+    /**
+     * Iterates over all entries.
+     */
+    @Benchmark
+    public int iterate() {
+        int sum = 0;
+        for (Map.Entry<String, Object> entry : this.map.entrySet()) {
+            sum += (Integer) entry.getValue();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.impl.actions.DefaultDataFunctionExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Data functions extracted from bean methods: generated by DefaultDataFunctionExtractor, built as lambda over
+ * generic MethodHandle.invoke (the way extractor worked before) and handwritten lambda as a baseline.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class DataFunctionBenchmark {
+
+    /**
+     * Bean with data function.
+     */
+    public static class Counter {
+
+        /**
+         * Increments counter in context.
+         * @param context context
+         * @return context
+         */
+        public Map increment(Map context) {
+            context.put("counter", (Integer) context.get("counter") + 1);
+            return context;
+        }
+    }
+
+    private Function<Map, Map> extracted;
+    private Function<Map, Map> methodHandle;
+    private Function<Map, Map> lambda;
+    private Map context;
+
+    /**
+     * Builds functions.
+     * @throws Exception if method handle can not be found
+     */
+    @Setup
+    public void setup() throws Exception {
+        final Counter counter = new Counter();
+        this.extracted = new DefaultDataFunctionExtractor(Collections.emptyList()).apply(counter, "increment");
+        final MethodHandle handle = MethodHandles.lookup().findVirtual(
+            Counter.class, "increment", MethodType.methodType(Map.class, Map.class)
+        );
+        this.methodHandle = ctx -> {
+            try {
+                return (Map) handle.invoke(counter, ctx);
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        };
+        this.lambda = counter::increment;
+        this.context = new HashMap();
+        this.context.put("counter", 0);
+    }
+
+    /**
+     * Function generated by DefaultDataFunctionExtractor.
+     */
+    @Benchmark
+    public Map extracted() {
+        return this.extracted.apply(this.context);
+    }
+
+    /**
+     * Lambda that calls non-constant method handle.
+     */
+    @Benchmark
+    public Map methodHandle() {
+        return this.methodHandle.apply(this.context);
+    }
+
+    /**
+     * Handwritten lambda.
+     */
+    @Benchmark
+    public Map lambda() {
+        return this.lambda.apply(this.context);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.impl.actions.DefaultAction;
+import com.github.xdcrafts.flower.core.impl.flows.ForEachFlow;
+import com.github.xdcrafts.flower.tools.map.MapApi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
+
+/**
+ * ForEachFlow pricing 10000 order lines with different parallelism, each line takes a few microseconds of work.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class ForEachFlowBenchmark {
+
+    private static final int LINES = 10000;
+    private static final int ROUNDS = 500;
+
+    @Param({"1", "2", "4"})
+    private int parallelism;
+
+    private List<Integer> lines;
+    private ForEachFlow forEachFlow;
+
+    /**
+     * Builds order lines and flow.
+     */
+    @Setup
+    public void setup() {
+        this.lines = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) {
+            this.lines.add(i);
+        }
+        this.forEachFlow = new ForEachFlow(
+            "forEachFlow",
+            new DefaultAction("price", ctx -> MapApi.assoc(ctx, "price", price((Integer) ctx.get("line")))),
+            with(new HashMap<String, Object>())
+                .assoc(ForEachFlow.ITEMS, "order.lines")
+                .assoc(ForEachFlow.ITEM, "line")
+                .assoc(ForEachFlow.RESULT, "order.prices")
+                .assoc(ForEachFlow.RESULT_ITEM, "price")
+                .assoc(ForEachFlow.PARALLELISM, this.parallelism)
+                .value()
+        );
+    }
+
+    /**
+     * Prices all order lines.
+     */
+    @Benchmark
+    public Map forEach() {
+        return this.forEachFlow.apply(with(new HashMap()).assoc("order", "lines", this.lines).value());
+    }
+
+    private static long price(int line) {
+        long price = line;
+        for (int i = 0; i < ROUNDS; i++) {
+            price = price * 6364136223846793005L + 1442695040888963407L;
+        }
+        return price;
+    }
+}
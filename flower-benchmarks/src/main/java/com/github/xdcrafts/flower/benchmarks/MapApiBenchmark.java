@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.tools.map.MapApi;
+import com.github.xdcrafts.flower.tools.map.MapDotApi;
+import com.github.xdcrafts.flower.tools.map.PersistentMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * MapApi and MapDotApi access to nested contexts.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class MapApiBenchmark {
+
+    @Param({"1", "3", "6"})
+    private int depth;
+
+    private Map context;
+    private Map persistentContext;
+    private Object[] path;
+    private String dotPath;
+
+    /**
+     * Builds context with value nested 'depth' levels deep.
+     */
+    @Setup
+    public void setup() {
+        this.path = new Object[this.depth];
+        final StringBuilder dotPathBuilder = new StringBuilder();
+        for (int i = 0; i < this.depth; i++) {
+            this.path[i] = "node" + i;
+            if (i != 0) {
+                dotPathBuilder.append('.');
+            }
+            dotPathBuilder.append("node").append(i);
+        }
+        this.dotPath = dotPathBuilder.toString();
+        this.context = new HashMap();
+        for (int i = 0; i < 10; i++) {
+            this.context.put("key" + i, i);
+        }
+        MapApi.assoc(this.context, this.path, "value");
+        this.persistentContext = PersistentMap.deepCopyOf(this.context);
+    }
+
+    /**
+     * MapApi.get by array path.
+     */
+    @Benchmark
+    public Optional<Object> get() {
+        return MapApi.get(this.context, this.path);
+    }
+
+    /**
+     * MapDotApi.dotGet by dot separated path.
+     */
+    @Benchmark
+    public Optional<Object> dotGet() {
+        return MapDotApi.dotGet(this.context, this.dotPath);
+    }
+
+    /**
+     * MapDotApi.dotAssoc by dot separated path into existing nodes.
+     */
+    @Benchmark
+    public Map dotAssoc() {
+        return MapDotApi.dotAssoc(this.context, this.dotPath, "value");
+    }
+
+    /**
+     * MapDotApi.dotAssocPersistent by dot separated path, returns new version of persistent context.
+     */
+    @Benchmark
+    public Map dotAssocPersistent() {
+        return MapDotApi.dotAssocPersistent(this.persistentContext, this.dotPath, "other");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.impl.actions.DefaultAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WithMiddlewareActionBase.apply wrapped with middleware stacks of different depth.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class MiddlewareBenchmark {
+
+    @Param({"0", "5", "20"})
+    private int depth;
+
+    private DefaultAction action;
+    private Map context;
+
+    /**
+     * Builds action wrapped with 'depth' pass-through middleware.
+     */
+    @Setup
+    public void setup() {
+        final List<Middleware> middleware = new ArrayList<>(this.depth);
+        for (int i = 0; i < this.depth; i++) {
+            middleware.add(Middleware.middleware("middleware-" + i, (meta, function) -> ctx -> function.apply(ctx)));
+        }
+        this.action = new DefaultAction("action", ctx -> ctx, middleware);
+        this.context = new HashMap();
+    }
+
+    /**
+     * Applies action through its middleware stack.
+     */
+    @Benchmark
+    public Map apply() {
+        return this.action.apply(this.context);
+    }
+}
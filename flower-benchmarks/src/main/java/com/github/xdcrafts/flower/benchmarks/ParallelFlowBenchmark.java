@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.core.impl.actions.DefaultAction;
+import com.github.xdcrafts.flower.core.impl.flows.DagSyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.ParallelFlow;
+import com.github.xdcrafts.flower.core.impl.flows.SyncFlow;
+import com.github.xdcrafts.flower.tools.map.MapApi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
+
+/**
+ * Six independent lookups, each waiting for 'latency' microseconds, applied one after another by SyncFlow
+ * and concurrently by ParallelFlow and by DagSyncFlow from declared reads and writes.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class ParallelFlowBenchmark {
+
+    private static final int LOOKUPS = 6;
+
+    @Param({"0", "100"})
+    private int latency;
+
+    private ExecutorService executorService;
+    private SyncFlow syncFlow;
+    private ParallelFlow parallelFlow;
+    private DagSyncFlow dagFlow;
+
+    /**
+     * Builds sequential and parallel flows of the same lookups.
+     */
+    @Setup
+    public void setup() {
+        this.executorService = Executors.newFixedThreadPool(LOOKUPS);
+        final long latencyNanos = TimeUnit.MICROSECONDS.toNanos(this.latency);
+        final List<Action> lookups = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            final String key = "lookup-" + i;
+            lookups.add(new DefaultAction(
+                key,
+                ctx -> {
+                    if (latencyNanos > 0) {
+                        LockSupport.parkNanos(latencyNanos);
+                    }
+                    return MapApi.assoc(ctx, "data", key, Boolean.TRUE);
+                },
+                Collections.emptyList(),
+                with(new HashMap<String, Object>())
+                    .assoc(Core.ActionMeta.READS, "request")
+                    .assoc(Core.ActionMeta.WRITES, "data." + key)
+                    .value()
+            ));
+        }
+        this.syncFlow = new SyncFlow("syncFlow", lookups);
+        this.parallelFlow = new ParallelFlow(
+            "parallelFlow",
+            lookups,
+            with(new HashMap<String, Object>())
+                .assoc(ParallelFlow.EXECUTOR_SERVICE, this.executorService)
+                .value()
+        );
+        this.dagFlow = DagSyncFlow.compile(
+            this.syncFlow,
+            with(new HashMap<String, Object>())
+                .assoc(DagSyncFlow.EXECUTOR_SERVICE, this.executorService)
+                .value()
+        );
+    }
+
+    /**
+     * Stops executor.
+     */
+    @TearDown
+    public void tearDown() {
+        this.executorService.shutdownNow();
+    }
+
+    /**
+     * Lookups one after another.
+     */
+    @Benchmark
+    public Map sequential() {
+        return this.syncFlow.apply(context());
+    }
+
+    /**
+     * Lookups forked and merged by ParallelFlow.
+     */
+    @Benchmark
+    public Map parallel() {
+        return this.parallelFlow.apply(context());
+    }
+
+    /**
+     * Lookups run concurrently by DagSyncFlow.
+     */
+    @Benchmark
+    public Map dag() {
+        return this.dagFlow.apply(context());
+    }
+
+    private static Map context() {
+        return with(new HashMap()).assoc("request", "id", 1).value();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Actor;
+import com.github.xdcrafts.flower.core.impl.DefaultActor;
+import com.github.xdcrafts.flower.core.impl.flows.SyncFlow;
+import com.github.xdcrafts.flower.core.impl.ring.RingActor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
+
+/**
+ * Throughput of a three step sync flow over a batch of events, applied by DefaultActor on the caller thread
+ * and by RingActor pipelining steps on its own threads with recycled contexts.
+ * Ring needs a core per step plus one for the caller, on fewer cores busy spin only measures scheduler.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class RingActorBenchmark {
+
+    private static final int EVENTS = 1000;
+    private static final int ROUNDS = 50;
+
+    @Param({"busy-spin", "yield", "park", "blocking"})
+    private String waitStrategy;
+
+    private List<Consumer<Map>> events;
+    private Actor<Long> actor;
+    private RingActor<Long> ringActor;
+
+    /**
+     * Builds events, flow and actors.
+     */
+    @Setup
+    public void setup() {
+        this.events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            final long event = i;
+            this.events.add(ctx -> ctx.put("event", event));
+        }
+        final SyncFlow flow = new SyncFlow("flow", Arrays.asList(
+            step("decode", "event", "decoded"),
+            step("enrich", "decoded", "enriched"),
+            step("score", "enriched", "score")
+        ));
+        this.actor = new DefaultActor<>(HashMap::new, flow, ctx -> (Long) ctx.get("score"));
+        this.ringActor = new RingActor<>(
+            "ring",
+            HashMap::new,
+            flow,
+            ctx -> (Long) ctx.get("score"),
+            with(new HashMap<String, Object>()).assoc(RingActor.WAIT_STRATEGY, this.waitStrategy).value()
+        );
+    }
+
+    /**
+     * Stops ring threads.
+     */
+    @TearDown
+    public void tearDown() {
+        this.ringActor.shutdown();
+    }
+
+    /**
+     * Applies flow to events one by one on the caller thread.
+     */
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public List<Long> actor() {
+        return this.actor.applyAll(this.events);
+    }
+
+    /**
+     * Publishes events to the ring and waits for all of them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public List<Long> ring() {
+        return this.ringActor.applyAll(this.events);
+    }
+
+    private static Action step(String name, String from, String to) {
+        return Action.action(name, ctx -> {
+            long value = (Long) ctx.get(from);
+            for (int i = 0; i < ROUNDS; i++) {
+                value = value * 6364136223846793005L + 1442695040888963407L;
+            }
+            ctx.put(to, value);
+            return ctx;
+        });
+    }
+}
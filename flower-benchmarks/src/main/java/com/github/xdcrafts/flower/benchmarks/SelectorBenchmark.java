@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.impl.extensions.DefaultExtension;
+import com.github.xdcrafts.flower.core.impl.selectors.KeywordSelector;
+import com.github.xdcrafts.flower.core.impl.selectors.PredicateSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
+
+/**
+ * KeywordSelector and PredicateSelector extension lookup, predicate selection is measured both
+ * with plain evaluation of all predicates and with discriminator index and first match policy.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class SelectorBenchmark {
+
+    @Param({"10", "100"})
+    private int extensions;
+
+    private KeywordSelector keywordSelector;
+    private PredicateSelector predicateSelector;
+    private PredicateSelector indexedSelector;
+    private Map singleKeywordContext;
+    private Map multiKeywordContext;
+    private Map predicateContext;
+
+    /**
+     * Registers 'extensions' extensions in both selectors.
+     */
+    @Setup
+    public void setup() {
+        this.keywordSelector = new KeywordSelector("keywordSelector", "request.type", true);
+        this.predicateSelector = new PredicateSelector("predicateSelector", true);
+        this.indexedSelector = new PredicateSelector(
+            "indexedSelector", true, PredicateSelector.MatchPolicy.FIRST, "type", Collections.emptyList()
+        );
+        for (int i = 0; i < this.extensions; i++) {
+            final String value = "type-" + i;
+            final Action action = Action.action(value, ctx -> ctx);
+            this.keywordSelector.register(new DefaultExtension(
+                value,
+                action,
+                with(new HashMap()).assoc(KeywordSelector.ConfigurationKeys.KEYWORD_VALUE, value).value()
+            ));
+            final Predicate<Map> predicate = ctx -> value.equals(ctx.get("type"));
+            this.predicateSelector.register(new DefaultExtension(
+                value,
+                action,
+                with(new HashMap()).assoc(PredicateSelector.ConfigurationKeys.PREDICATE, predicate).value()
+            ));
+            this.indexedSelector.register(new DefaultExtension(
+                value,
+                action,
+                with(new HashMap())
+                    .assoc(PredicateSelector.ConfigurationKeys.PREDICATE, predicate)
+                    .assoc(PredicateSelector.ConfigurationKeys.DISCRIMINATOR_VALUE, value)
+                    .value()
+            ));
+        }
+        final String last = "type-" + (this.extensions - 1);
+        this.singleKeywordContext = with(new HashMap()).dotAssoc("request.type", last).value();
+        this.multiKeywordContext = with(new HashMap())
+            .dotAssoc("request.type", Arrays.asList("type-0", last))
+            .value();
+        this.predicateContext = with(new HashMap()).assoc("type", last).value();
+    }
+
+    /**
+     * Keyword selection by single string value.
+     */
+    @Benchmark
+    public List<Action> keywordSingle() {
+        return this.keywordSelector.selectAction(this.singleKeywordContext);
+    }
+
+    /**
+     * Keyword selection by collection of values.
+     */
+    @Benchmark
+    public List<Action> keywordMultiple() {
+        return this.keywordSelector.selectAction(this.multiKeywordContext);
+    }
+
+    /**
+     * Predicate selection.
+     */
+    @Benchmark
+    public List<Action> predicate() {
+        return this.predicateSelector.selectAction(this.predicateContext);
+    }
+
+    /**
+     * Predicate selection with discriminator index and first match policy.
+     */
+    @Benchmark
+    public List<Action> predicateIndexed() {
+        return this.indexedSelector.selectAction(this.predicateContext);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.benchmarks;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.impl.flows.FusedSyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.SyncFlow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SyncFlow.act with flows of different length, composed and fused.
+ */
+@State(Scope.Benchmark)
+@SuppressWarnings("unchecked")
+public class SyncFlowBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int actions;
+
+    private SyncFlow flow;
+    private SyncFlow fusedFlow;
+    private Map context;
+
+    /**
+     * Builds flow of 'actions' counting steps.
+     */
+    @Setup
+    public void setup() {
+        final List<Action> steps = new ArrayList<>(this.actions);
+        for (int i = 0; i < this.actions; i++) {
+            steps.add(Action.action("step-" + i, ctx -> {
+                ctx.put("counter", (Integer) ctx.get("counter") + 1);
+                return ctx;
+            }));
+        }
+        this.flow = new SyncFlow("flow", steps);
+        this.fusedFlow = new FusedSyncFlow("fusedFlow", steps);
+        this.context = new HashMap();
+    }
+
+    /**
+     * Runs whole flow through SyncFlow.apply.
+     */
+    @Benchmark
+    public Map act() {
+        this.context.put("counter", 0);
+        return this.flow.apply(this.context);
+    }
+
+    /**
+     * Runs whole flow through FusedSyncFlow.apply.
+     */
+    @Benchmark
+    public Map fused() {
+        this.context.put("counter", 0);
+        return this.fusedFlow.apply(this.context);
+    }
+}
@@ -16,11 +16,15 @@
 
 package com.github.xdcrafts.flower.core;
 
+import com.github.xdcrafts.flower.core.impl.Futures;
 import com.github.xdcrafts.flower.core.impl.actions.DefaultAction;
 import com.github.xdcrafts.flower.tools.AsFunction;
 import com.github.xdcrafts.flower.tools.Named;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 /**
@@ -37,4 +41,28 @@ public interface Action extends Named, AsFunction<Map, Map> {
     static Action action(String name, Function<Map, Map> body) {
         return new DefaultAction(name, body);
     }
+
+    /**
+     * Applies this action asynchronously, returned stage completes with resulting context.
+     * Default implementation calls apply in the calling thread, actions that wait for something
+     * should override it and complete stage when ready instead of blocking.
+     * @param context context to process
+     * @return stage with resulting context
+     */
+    default CompletionStage<Map> applyAsync(Map context) {
+        return Futures.completed(() -> apply(context));
+    }
+
+    /**
+     * Applies this action to each context of list, BatchAction processes the whole list at once.
+     * @param contexts contexts to process
+     * @return resulting contexts in the same order
+     */
+    default List<Map> applyAll(List<Map> contexts) {
+        final List<Map> results = new ArrayList<>(contexts.size());
+        for (Map context : contexts) {
+            results.add(apply(context));
+        }
+        return results;
+    }
 }
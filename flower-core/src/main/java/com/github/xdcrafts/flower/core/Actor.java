@@ -16,7 +16,12 @@
 
 package com.github.xdcrafts.flower.core;
 
+import com.github.xdcrafts.flower.core.impl.Futures;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -41,4 +46,26 @@ public interface Actor<T> extends Function<Consumer<Map>, T> {
         return apply(ctx -> {
         });
     }
+
+    /**
+     * Apply actor's action asynchronously to map context initialized by supported closure.
+     * @param contextInitializer closure that fills context with data to process
+     * @return stage with value of type T produced from map context
+     */
+    default CompletionStage<T> applyAsync(Consumer<Map> contextInitializer) {
+        return Futures.completed(() -> apply(contextInitializer));
+    }
+
+    /**
+     * Apply actor's action to a batch of map contexts initialized by supported closures.
+     * @param contextInitializers closures that fill contexts with data to process
+     * @return values of type T produced from map contexts in the same order
+     */
+    default List<T> applyAll(List<Consumer<Map>> contextInitializers) {
+        final List<T> results = new ArrayList<>(contextInitializers.size());
+        for (Consumer<Map> contextInitializer : contextInitializers) {
+            results.add(apply(contextInitializer));
+        }
+        return results;
+    }
 }
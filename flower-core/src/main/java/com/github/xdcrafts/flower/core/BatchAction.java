@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Action that processes a list of contexts in one call, cheaper than applying it to each context in turn.
+ * Flows apply batch actions to whole batches and any other action to each context of batch.
+ */
+public interface BatchAction extends Action {
+
+    /**
+     * Processes list of contexts.
+     * @param contexts contexts to process
+     * @return resulting contexts in the same order
+     */
+    List<Map> actAll(List<Map> contexts);
+
+    /**
+     * Applies this action to list of contexts with single actAll call.
+     * @param contexts contexts to process
+     * @return resulting contexts in the same order
+     */
+    @Override
+    default List<Map> applyAll(List<Map> contexts) {
+        return actAll(contexts);
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.github.xdcrafts.flower.core;
 
+import com.github.xdcrafts.flower.tools.map.CompiledPath;
+
 /**
  * Core namespace.
  */
@@ -35,6 +37,27 @@ public final class Core {
         public static final String NAME = "name";
         public static final String TYPE = "type";
         public static final String MIDDLEWARE = "middleware";
+        public static final String ASYNC_BOUNDARY = "async-boundary";
+        /**
+         * Context paths action reads, collection of dot separated paths or comma separated string of them.
+         */
+        public static final String READS = "reads";
+        /**
+         * Context paths action writes or removes, collection of dot separated paths or comma separated string of them.
+         */
+        public static final String WRITES = "writes";
+        /**
+         * Name of StagedFlow stage action belongs to, consecutive actions with the same name share a stage.
+         */
+        public static final String STAGE = "stage";
+        /**
+         * Number of worker threads of action's StagedFlow stage.
+         */
+        public static final String STAGE_THREADS = "stage-threads";
+        /**
+         * Queue capacity of action's StagedFlow stage.
+         */
+        public static final String STAGE_CAPACITY = "stage-capacity";
     }
 
     /**
@@ -42,5 +65,11 @@ public final class Core {
      */
     public static final class FlowMeta {
         public static final String EXPECTATION = "meta.flow.expectation";
+        public static final CompiledPath EXPECTATION_PATH = CompiledPath.compile(EXPECTATION);
+        /**
+         * CancellationToken of the request with its deadline, checked by async flow stages before they run.
+         */
+        public static final String CANCELLATION = "meta.flow.cancellation";
+        public static final CompiledPath CANCELLATION_PATH = CompiledPath.compile(CANCELLATION);
     }
 }
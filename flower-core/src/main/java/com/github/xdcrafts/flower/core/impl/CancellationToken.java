@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl;
+
+import com.github.xdcrafts.flower.core.Core;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancellation state and optional deadline of a single request, it is stored in context under
+ * Core.FlowMeta.CANCELLATION next to expectation. Async flow stages check it before they run and fail with
+ * CancellationException instead of running when request is cancelled or its deadline has passed, selectors
+ * and middleware may use remaining budget to pick cheaper actions or shorter timeouts.
+ */
+public final class CancellationToken {
+
+    private final long deadline;
+    private final boolean timed;
+    private volatile boolean cancelled;
+
+    private CancellationToken(boolean timed, long deadline) {
+        this.timed = timed;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates token without deadline, it is cancelled only explicitly.
+     * @return new token
+     */
+    public static CancellationToken create() {
+        return new CancellationToken(false, 0);
+    }
+
+    /**
+     * Creates token that is cancelled when timeout passes.
+     * @param timeout timeout from now
+     * @param timeUnit unit of timeout
+     * @return new token
+     */
+    public static CancellationToken withTimeout(long timeout, TimeUnit timeUnit) {
+        return new CancellationToken(true, System.nanoTime() + timeUnit.toNanos(timeout));
+    }
+
+    /**
+     * Returns token of the request context belongs to.
+     * @param context context
+     * @return token if context has one
+     */
+    public static Optional<CancellationToken> of(Map context) {
+        return Core.FlowMeta.CANCELLATION_PATH.get(context, CancellationToken.class);
+    }
+
+    /**
+     * Throws CancellationException if context has a token that is cancelled or expired.
+     * @param context context
+     */
+    public static void check(Map context) {
+        final CancellationToken token = Core.FlowMeta.CANCELLATION_PATH.getNullable(
+            context, CancellationToken.class
+        );
+        if (token != null) {
+            token.check();
+        }
+    }
+
+    /**
+     * Cancels token, stages that have not started yet will not run.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * If token was cancelled or its deadline has passed.
+     * @return true if request should not proceed
+     */
+    public boolean isCancelled() {
+        return this.cancelled || this.timed && this.deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * If token has a deadline.
+     * @return true if token expires
+     */
+    public boolean hasDeadline() {
+        return this.timed;
+    }
+
+    /**
+     * Returns time left until deadline, Long.MAX_VALUE if there is no deadline and 0 if token is cancelled.
+     * @param timeUnit unit of result
+     * @return remaining budget
+     */
+    public long remaining(TimeUnit timeUnit) {
+        if (this.cancelled) {
+            return 0;
+        }
+        if (!this.timed) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, timeUnit.convert(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Throws CancellationException if token is cancelled or expired.
+     */
+    public void check() {
+        if (this.cancelled) {
+            throw new CancellationException("Request was cancelled.");
+        }
+        if (this.timed && this.deadline - System.nanoTime() <= 0) {
+            throw new CancellationException("Request deadline has passed.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CancellationToken{"
+                + "cancelled=" + this.cancelled
+                + ", remainingMillis=" + (this.timed ? remaining(TimeUnit.MILLISECONDS) : "unbounded")
+                + '}';
+    }
+}
@@ -18,16 +18,24 @@ package com.github.xdcrafts.flower.core.impl;
 
 import com.github.xdcrafts.flower.core.Action;
 import com.github.xdcrafts.flower.core.Actor;
+import com.github.xdcrafts.flower.tools.map.PersistentMap;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
  * Default implementation of Actor.
+ * If context factory supplies PersistentMap then actor runs action in immutable context mode: context initializer
+ * fills a mutable draft that is converted to PersistentMap, and each action returns new version of context.
  * @param <T> return type;
  */
+@SuppressWarnings("unchecked")
 public class DefaultActor<T> implements Actor<T> {
 
     private final Supplier<Map> contextFactory;
@@ -57,11 +65,46 @@ public class DefaultActor<T> implements Actor<T> {
 
     @Override
     public T apply(Consumer<Map> contextInitializer) {
+        return this.body.apply(context(contextInitializer));
+    }
+
+    @Override
+    public CompletionStage<T> applyAsync(Consumer<Map> contextInitializer) {
+        final Map ctx;
+        try {
+            ctx = context(contextInitializer);
+        } catch (RuntimeException e) {
+            return Futures.failed(e);
+        }
+        return this.action.applyAsync(ctx).thenApply(this.conclusion);
+    }
+
+    @Override
+    public List<T> applyAll(List<Consumer<Map>> contextInitializers) {
+        final List<Map> contexts = new ArrayList<>(contextInitializers.size());
+        for (Consumer<Map> contextInitializer : contextInitializers) {
+            contexts.add(context(contextInitializer));
+        }
+        final List<Map> processed = this.action.applyAll(contexts);
+        final List<T> results = new ArrayList<>(processed.size());
+        for (Map ctx : processed) {
+            results.add(this.conclusion.apply(ctx));
+        }
+        return results;
+    }
+
+    private Map context(Consumer<Map> contextInitializer) {
         final Map ctx = this.contextFactory.get();
-        if (contextInitializer != null) {
-            contextInitializer.accept(ctx);
+        if (contextInitializer == null) {
+            return ctx;
+        }
+        if (ctx instanceof PersistentMap) {
+            final Map draft = new HashMap(ctx);
+            contextInitializer.accept(draft);
+            return PersistentMap.deepCopyOf(draft);
         }
-        return this.body.apply(ctx);
+        contextInitializer.accept(ctx);
+        return ctx;
     }
 
     @Override
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl;
+
+import com.github.xdcrafts.flower.core.Action;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Utility methods for CompletableFuture and Future.
+ */
+public final class Futures {
+
+    /**
+     * Single daemon thread that only completes futures on timeout, it never runs actions.
+     */
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+        final Thread thread = new Thread(r, "flower-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private Futures() {
+        // Nothing
+    }
+
+    /**
+     * Returns future completed exceptionally with supplied throwable.
+     * @param throwable cause
+     * @param <T> value type
+     * @return failed future
+     */
+    public static <T> CompletableFuture<T> failed(final Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    /**
+     * Calls supplier and wraps its result into completed future, or exception into failed one.
+     * @param supplier value supplier
+     * @param <T> value type
+     * @return completed future
+     */
+    public static <T> CompletableFuture<T> completed(final Supplier<T> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (Throwable t) {
+            return failed(t);
+        }
+    }
+
+    /**
+     * Waits for future and returns its result. Unlike CompletableFuture.join it rethrows runtime exceptions
+     * and errors the future has failed with as is, without CompletionException wrapper.
+     * @param future future to wait for
+     * @param <T> value type
+     * @return future result
+     */
+    public static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits at most timeout for future and returns its result, the same as Future.get, except that fork join
+     * worker waits for a future that is not a CompletableFuture through ForkJoinPool.managedBlock, so its pool may
+     * add a spare worker meanwhile. CompletableFuture.get does that on its own.
+     * @param future future to wait for
+     * @param timeout timeout
+     * @param timeUnit unit of timeout
+     * @param <T> value type
+     * @return future result
+     * @throws InterruptedException if current thread was interrupted while waiting
+     * @throws ExecutionException if future completed exceptionally
+     * @throws TimeoutException if future is not completed in time
+     */
+    public static <T> T get(
+        final Future<T> future, final long timeout, final TimeUnit timeUnit
+    ) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!(future instanceof CompletableFuture) && !future.isDone() && ForkJoinTask.inForkJoinPool()) {
+            ForkJoinPool.managedBlock(new FutureBlocker(future, timeUnit.toNanos(timeout)));
+            if (!future.isDone()) {
+                throw new TimeoutException("Timed out after " + timeout + " " + timeUnit);
+            }
+        }
+        return future.get(timeout, timeUnit);
+    }
+
+    /**
+     * Returns future that completes with the same result as stage or with TimeoutException if stage is not
+     * completed in time. Timeout is scheduled on a shared timer, so no thread is blocked while waiting.
+     * @param stage stage to wait for
+     * @param timeout timeout
+     * @param timeUnit unit of timeout
+     * @param <T> value type
+     * @return future with timeout
+     */
+    public static <T> CompletableFuture<T> within(
+        final CompletionStage<T> stage, final long timeout, final TimeUnit timeUnit
+    ) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final ScheduledFuture<?> timer = TIMER.schedule(
+            () -> result.completeExceptionally(new TimeoutException("Timed out after " + timeout + " " + timeUnit)),
+            timeout,
+            timeUnit
+        );
+        stage.whenComplete((value, throwable) -> {
+            timer.cancel(false);
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Schedules task on a shared timer.
+     * @param task task to run, must be short and non-blocking
+     * @param delay delay
+     * @param timeUnit unit of delay
+     * @return scheduled future
+     */
+    public static ScheduledFuture<?> schedule(final Runnable task, final long delay, final TimeUnit timeUnit) {
+        return TIMER.schedule(task, delay, timeUnit);
+    }
+
+    /**
+     * Applies actions asynchronously one after another, each next action starts when previous stage completes.
+     * @param actions actions to apply
+     * @param context initial context
+     * @return stage with resulting context
+     */
+    public static CompletionStage<Map> applyAsync(final List<Action> actions, final Map context) {
+        CompletionStage<Map> stage = CompletableFuture.completedFuture(context);
+        for (Action action : actions) {
+            stage = stage.thenCompose(action::applyAsync);
+        }
+        return stage;
+    }
+
+    /**
+     * Blocks fork join worker in Future.get until future is completed or deadline passes, pool treats it as blocked.
+     */
+    private static final class FutureBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final Future<?> future;
+        private final long deadline;
+
+        private FutureBlocker(Future<?> future, long nanos) {
+            this.future = future;
+            this.deadline = System.nanoTime() + nanos;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (!isReleasable()) {
+                try {
+                    this.future.get(this.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | CancellationException | TimeoutException e) {
+                    // Outcome is reported by Futures.get itself
+                    return true;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return this.future.isDone() || this.deadline - System.nanoTime() <= 0;
+        }
+    }
+}
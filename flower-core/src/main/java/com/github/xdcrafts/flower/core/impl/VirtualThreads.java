@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Access to virtual threads executor. Virtual threads are available since Java 21, on older runtimes
+ * executor falls back to cached pool of daemon platform threads.
+ */
+public final class VirtualThreads {
+
+    private static final ExecutorService VIRTUAL_EXECUTOR = newVirtualThreadPerTaskExecutor();
+    private static final boolean SUPPORTED = VIRTUAL_EXECUTOR != null;
+    private static final ExecutorService EXECUTOR = SUPPORTED ? VIRTUAL_EXECUTOR : newDaemonCachedThreadPool();
+
+    private VirtualThreads() {
+        // Nothing
+    }
+
+    /**
+     * Checks if current runtime supports virtual threads.
+     * @return true if executor runs tasks on virtual threads
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * Shared executor that starts new virtual thread per task.
+     * @return executor service
+     */
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    private static ExecutorService newDaemonCachedThreadPool() {
+        final AtomicInteger counter = new AtomicInteger();
+        final ThreadFactory threadFactory = r -> {
+            final Thread thread = new Thread(r, "flower-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
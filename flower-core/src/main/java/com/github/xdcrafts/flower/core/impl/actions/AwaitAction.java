@@ -18,16 +18,21 @@ package com.github.xdcrafts.flower.core.impl.actions;
 
 import com.github.xdcrafts.flower.core.Action;
 import com.github.xdcrafts.flower.core.Core;
-import com.github.xdcrafts.flower.tools.map.MapDotApi;
+import com.github.xdcrafts.flower.core.impl.CancellationToken;
+import com.github.xdcrafts.flower.core.impl.Futures;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
  * Awaits completion of async expectation.
+ * Fork join worker awaits it through ForkJoinPool.managedBlock, so nested flows running on the same pool
+ * do not starve it. Waits no longer than remaining budget of request's CancellationToken, expectation is cancelled
+ * on timeout, so async flow that produces it does not run its remaining stages.
  */
 public class AwaitAction implements Action {
 
@@ -52,15 +57,50 @@ public class AwaitAction implements Action {
 
     @Override
     public Map apply(Map map) {
-        return MapDotApi.dotGet(map, CompletableFuture.class, Core.FlowMeta.EXPECTATION)
-            .map(f -> {
-                try {
-                    return (Map) f.get(this.timeout, this.timeUnit);
-                } catch (ExecutionException | InterruptedException | TimeoutException e) {
-                    throw new RuntimeException(e);
-                }
-            })
-            .orElse(map);
+        final CompletableFuture expectation = Core.FlowMeta.EXPECTATION_PATH.getNullable(
+            map, CompletableFuture.class
+        );
+        if (expectation == null) {
+            return map;
+        }
+        try {
+            return (Map) Futures.get(expectation, timeoutNanos(map), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            expectation.cancel(false);
+            throw new RuntimeException(e);
+        } catch (ExecutionException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Completes when expectation completes, timeout is scheduled on a shared timer instead of blocking.
+     */
+    @Override
+    public CompletionStage<Map> applyAsync(Map map) {
+        final CompletableFuture<Map> expectation = Core.FlowMeta.EXPECTATION_PATH.getNullable(
+            map, CompletableFuture.class
+        );
+        if (expectation == null) {
+            return CompletableFuture.completedFuture(map);
+        }
+        final CompletableFuture<Map> result = Futures.within(expectation, timeoutNanos(map), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, throwable) -> {
+            if (throwable instanceof TimeoutException) {
+                expectation.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Own timeout or remaining budget of request's cancellation token, whichever is shorter.
+     */
+    private long timeoutNanos(Map map) {
+        final long timeoutNanos = this.timeUnit.toNanos(this.timeout);
+        return CancellationToken.of(map)
+            .map(token -> Math.min(timeoutNanos, token.remaining(TimeUnit.NANOSECONDS)))
+            .orElse(timeoutNanos);
     }
 
     @Override
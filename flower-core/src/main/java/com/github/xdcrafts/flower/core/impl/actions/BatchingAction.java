@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.actions;
+
+import com.github.xdcrafts.flower.core.BatchAction;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.impl.Futures;
+import com.github.xdcrafts.flower.core.impl.VirtualThreads;
+import com.github.xdcrafts.flower.tools.Histogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
+
+/**
+ * Action that collects contexts of concurrent callers into batches and applies batch function once per batch.
+ * Batch is flushed as soon as 'maxBatchSize' contexts are pending (64 by default) or at latest 'maxLingerMicros'
+ * after the oldest of them arrived (1000 by default). Batch function must return results in the same order as
+ * contexts, every caller is completed with its own result or with exception of the whole batch.
+ * Callers put contexts into lock free queue, batch filled by blocking caller is applied in its thread, any other
+ * batch is applied by executor service (virtual threads executor by default).
+ * Sizes of batches and time their oldest contexts waited, in microseconds, are recorded in histograms.
+ * Batch passed to actAll is split into batches of 'maxBatchSize' contexts that are applied right away.
+ */
+@SuppressWarnings("unchecked")
+public class BatchingAction extends WithMiddlewareActionBase implements BatchAction {
+
+    public static final String MAX_BATCH_SIZE = "maxBatchSize";
+    public static final String MAX_LINGER_MICROS = "maxLingerMicros";
+    public static final String EXECUTOR_SERVICE = "executorService";
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final long DEFAULT_MAX_LINGER_MICROS = 1000;
+
+    private final String name;
+    private final Function<List<Map>, List<Map>> batchFunction;
+    private final Map configuration;
+    private final int maxBatchSize;
+    private final long maxLingerMicros;
+    private final ExecutorService executorService;
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean lingerScheduled = new AtomicBoolean();
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram lingerMicros = new Histogram();
+
+    /**
+     * Context of a caller waiting for its result.
+     */
+    private static final class Pending {
+        final Map context;
+        final long enqueuedAt;
+        final CompletableFuture<Map> result = new CompletableFuture<>();
+
+        Pending(Map context) {
+            this.context = context;
+            this.enqueuedAt = System.nanoTime();
+        }
+    }
+
+    public BatchingAction(String name, Function<List<Map>, List<Map>> batchFunction, Map configuration) {
+        this(name, batchFunction, configuration, Collections.emptyList());
+    }
+
+    public BatchingAction(
+        String name, Function<List<Map>, List<Map>> batchFunction, Map configuration, List<Middleware> middleware
+    ) {
+        super(middleware);
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.configuration = configuration;
+        this.maxBatchSize = Math.max(1, dotGet(configuration, Integer.class, MAX_BATCH_SIZE)
+            .orElse(DEFAULT_MAX_BATCH_SIZE));
+        this.maxLingerMicros = dotGet(configuration, Number.class, MAX_LINGER_MICROS)
+            .map(Number::longValue)
+            .orElse(DEFAULT_MAX_LINGER_MICROS);
+        this.executorService = dotGet(configuration, ExecutorService.class, EXECUTOR_SERVICE)
+            .orElseGet(VirtualThreads::executor);
+        this.meta.put(Core.ActionMeta.NAME, name);
+        this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
+        this.meta.put(Core.ActionMeta.MIDDLEWARE, middleware);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Map act(Map context) {
+        return Futures.join(enqueue(context, true));
+    }
+
+    @Override
+    public CompletionStage<Map> actAsync(Map context) {
+        return enqueue(context, false);
+    }
+
+    @Override
+    public List<Map> actAll(List<Map> contexts) {
+        final List<Map> results = new ArrayList<>(contexts.size());
+        for (int from = 0; from < contexts.size(); from += this.maxBatchSize) {
+            final List<Map> batch = contexts.subList(from, Math.min(from + this.maxBatchSize, contexts.size()));
+            this.batchSizes.record(batch.size());
+            results.addAll(process(batch));
+        }
+        return results;
+    }
+
+    /**
+     * Returns snapshot of sizes of applied batches.
+     * @return batch size histogram
+     */
+    public Histogram.Snapshot batchSizes() {
+        return this.batchSizes.snapshot();
+    }
+
+    /**
+     * Returns snapshot of time in microseconds the oldest context of each batch waited for it to be applied.
+     * @return linger histogram
+     */
+    public Histogram.Snapshot lingerMicros() {
+        return this.lingerMicros.snapshot();
+    }
+
+    private CompletableFuture<Map> enqueue(Map context, boolean blocking) {
+        final Pending caller = new Pending(context);
+        this.pending.offer(caller);
+        if (this.pendingCount.incrementAndGet() >= this.maxBatchSize) {
+            final List<Pending> batch = drain();
+            if (!batch.isEmpty()) {
+                if (blocking) {
+                    apply(batch);
+                } else {
+                    submit(batch);
+                }
+            }
+        }
+        if (!caller.result.isDone() && !this.lingerScheduled.get() && this.lingerScheduled.compareAndSet(false, true)) {
+            Futures.schedule(this::flushLingering, this.maxLingerMicros, TimeUnit.MICROSECONDS);
+        }
+        return caller.result;
+    }
+
+    /**
+     * Runs on timer, every context that has lingered for 'maxLingerMicros' is drained here together with younger
+     * contexts that fit into its batch. If the oldest pending context is younger, for example it arrived while
+     * timer of an already flushed context was pending, timer is armed again for its deadline. Any context
+     * enqueued after the flag is reset and before it is set again schedules its own flush.
+     */
+    private void flushLingering() {
+        this.lingerScheduled.set(false);
+        final long lingerNanos = TimeUnit.MICROSECONDS.toNanos(this.maxLingerMicros);
+        Pending oldest = this.pending.peek();
+        while (oldest != null) {
+            final long remaining = oldest.enqueuedAt + lingerNanos - System.nanoTime();
+            if (remaining > 0) {
+                this.lingerScheduled.set(true);
+                Futures.schedule(this::flushLingering, remaining, TimeUnit.NANOSECONDS);
+                return;
+            }
+            final List<Pending> batch = drain();
+            if (!batch.isEmpty()) {
+                submit(batch);
+            }
+            oldest = this.pending.peek();
+        }
+    }
+
+    /**
+     * Hands batch over to executor service. Batch is already drained from the queue, so if executor rejects it
+     * (e.g. it was shut down) nothing else would ever complete its futures, they are failed here instead.
+     */
+    private void submit(List<Pending> batch) {
+        try {
+            this.executorService.execute(() -> apply(batch));
+        } catch (RejectedExecutionException e) {
+            for (Pending caller : batch) {
+                caller.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private List<Pending> drain() {
+        final List<Pending> batch = new ArrayList<>(Math.min(this.maxBatchSize, this.pendingCount.get()) + 1);
+        while (batch.size() < this.maxBatchSize) {
+            final Pending next = this.pending.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        if (!batch.isEmpty()) {
+            this.pendingCount.addAndGet(-batch.size());
+        }
+        return batch;
+    }
+
+    private void apply(List<Pending> batch) {
+        final int size = batch.size();
+        this.batchSizes.record(size);
+        this.lingerMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - batch.get(0).enqueuedAt));
+        final List<Map> contexts = new ArrayList<>(size);
+        for (Pending caller : batch) {
+            contexts.add(caller.context);
+        }
+        final List<Map> results;
+        try {
+            results = process(contexts);
+        } catch (Throwable t) {
+            for (Pending caller : batch) {
+                caller.result.completeExceptionally(t);
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            batch.get(i).result.complete(results.get(i));
+        }
+    }
+
+    private List<Map> process(List<Map> contexts) {
+        final List<Map> results = this.batchFunction.apply(contexts);
+        if (results == null || results.size() != contexts.size()) {
+            throw new IllegalStateException(
+                "Batch function of '" + this.name + "' returned "
+                    + (results == null ? "null" : results.size() + " results")
+                    + " for " + contexts.size() + " contexts."
+            );
+        }
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchingAction{"
+                + "name='" + this.name + '\''
+                + ", configuration=" + this.configuration
+                + '}';
+    }
+}
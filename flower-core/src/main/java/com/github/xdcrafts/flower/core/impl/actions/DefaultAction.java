@@ -37,8 +37,15 @@ public class DefaultAction extends WithMiddlewareActionBase {
     }
 
     public DefaultAction(String name, Function<Map, Map> body, List<Middleware> middleware) {
+        this(name, body, middleware, Collections.emptyMap());
+    }
+
+    public DefaultAction(
+        String name, Function<Map, Map> body, List<Middleware> middleware, Map<String, Object> meta
+    ) {
         super(middleware);
         this.actionBody = body;
+        this.meta.putAll(meta);
         this.name = name;
         this.meta.put(Core.ActionMeta.NAME, name);
         this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
@@ -20,10 +20,14 @@ import com.github.xdcrafts.flower.core.DataFunctionExtractor;
 import com.github.xdcrafts.flower.core.MethodConverter;
 import com.github.xdcrafts.flower.tools.ClassApi;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.List;
@@ -33,13 +37,21 @@ import java.util.stream.Collectors;
 
 /**
  * Default implementation of DataFunctionExtractor.
+ * Methods of type Map -> Map are turned into Function implementations generated by LambdaMetafactory,
+ * so calls are as cheap as calls of a handwritten lambda. If it is not possible (method or class is not public,
+ * class is not visible from this class loader or method throws checked exceptions), then function invokes
+ * exact method handle and wraps checked exceptions into RuntimeException. Only LambdaConversionException leads
+ * to that fallback, any other failure of lambda generation is propagated.
  */
 @SuppressWarnings("unchecked")
 public class DefaultDataFunctionExtractor implements DataFunctionExtractor {
 
-    private static Map safeVirtualInvoke(MethodHandle methodHandle, Object bean, Map context) {
+    private static final MethodType DATA_FUNCTION_TYPE = MethodType.methodType(Map.class, Map.class);
+    private static final MethodType ERASED_FUNCTION_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static Map safeInvoke(MethodHandle methodHandle, Map context) {
         try {
-            return (Map) methodHandle.invoke(bean, context);
+            return (Map) methodHandle.invokeExact(context);
         } catch (Throwable throwable) {
             if (throwable instanceof RuntimeException) {
                 throw (RuntimeException) throwable;
@@ -48,14 +60,52 @@ public class DefaultDataFunctionExtractor implements DataFunctionExtractor {
         }
     }
 
-    private static Map safeStaticInvoke(MethodHandle methodHandle, Map context) {
+    /**
+     * Checks if function for method can be generated by LambdaMetafactory in this class loader.
+     */
+    private static boolean isLambdaCompatible(Class clazz, Method method) {
+        if (!Modifier.isPublic(clazz.getModifiers())
+            || !Modifier.isPublic(method.getModifiers())
+            || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return false;
+        }
+        for (Class exceptionType : method.getExceptionTypes()) {
+            if (!RuntimeException.class.isAssignableFrom(exceptionType)
+                && !Error.class.isAssignableFrom(exceptionType)) {
+                return false;
+            }
+        }
+        return isVisible(clazz) && isVisible(method.getReturnType()) && isVisible(method.getParameterTypes()[0]);
+    }
+
+    private static boolean isVisible(Class clazz) {
         try {
-            return (Map) methodHandle.invoke(context);
+            return Class.forName(clazz.getName(), false, DefaultDataFunctionExtractor.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static Function<Map, Map> lambdaFunction(
+        MethodHandles.Lookup lookup, MethodHandle methodHandle, Object object, Class clazz, boolean isVirtual
+    ) throws LambdaConversionException {
+        final MethodType instantiatedType = methodHandle.type().dropParameterTypes(0, isVirtual ? 1 : 0);
+        final CallSite callSite = LambdaMetafactory.metafactory(
+            lookup,
+            "apply",
+            isVirtual ? MethodType.methodType(Function.class, clazz) : MethodType.methodType(Function.class),
+            ERASED_FUNCTION_TYPE,
+            methodHandle,
+            instantiatedType
+        );
+        try {
+            return isVirtual
+                ? (Function<Map, Map>) callSite.getTarget().invoke(object)
+                : (Function<Map, Map>) callSite.getTarget().invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
         } catch (Throwable throwable) {
-            if (throwable instanceof RuntimeException) {
-                throw (RuntimeException) throwable;
-            }
-            throw new RuntimeException(throwable);
+            throw new IllegalStateException(throwable);
         }
     }
 
@@ -76,17 +126,25 @@ public class DefaultDataFunctionExtractor implements DataFunctionExtractor {
             && parameterTypes.length == 1
             && Map.class.isAssignableFrom(parameterTypes[0])) {
             final MethodHandles.Lookup lookup = MethodHandles.lookup();
-            final MethodType methodType = MethodType.methodType(Map.class, Map.class);
+            final MethodType methodType = MethodType.methodType(returnType, parameterTypes);
+            final MethodHandle methodHandle;
             try {
-                final MethodHandle methodHandle = isVirtual
+                methodHandle = isVirtual
                     ? lookup.findVirtual(clazz, methodName, methodType)
                     : lookup.findStatic(clazz, methodName, methodType);
-                return isVirtual
-                    ? ctx -> safeVirtualInvoke(methodHandle, object, ctx)
-                    : ctx -> safeStaticInvoke(methodHandle, ctx);
             } catch (NoSuchMethodException | IllegalAccessException e) {
                 throw new IllegalArgumentException(e);
             }
+            if (isLambdaCompatible(clazz, declaredMethod)) {
+                try {
+                    return lambdaFunction(lookup, methodHandle, object, clazz, isVirtual);
+                } catch (LambdaConversionException e) {
+                    // Fall back to method handle invocation
+                }
+            }
+            final MethodHandle exactHandle = (isVirtual ? methodHandle.bindTo(object) : methodHandle)
+                .asType(DATA_FUNCTION_TYPE);
+            return ctx -> safeInvoke(exactHandle, ctx);
         } else {
             final Map<MethodConverter, Integer> converterToDistance = methodConverters
                 .stream()
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.actions;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.tools.WithMeta;
+import com.github.xdcrafts.flower.tools.WithMetaBase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Action that adds meta-information to another action without changing it, e.g. meta declared by a flow step,
+ * so wrapped action may be shared by several flows. Every application, including asynchronous and batch ones,
+ * is forwarded to the wrapped action as is.
+ */
+public class DelegatingAction extends WithMetaBase implements Action {
+
+    private final Action action;
+
+    public DelegatingAction(Action action, Map<String, Object> meta) {
+        this.action = action;
+        if (action instanceof WithMeta) {
+            this.meta.putAll(((WithMeta) action).meta());
+        }
+        this.meta.put(Core.ActionMeta.NAME, action.getName());
+        this.meta.put(Core.ActionMeta.TYPE, action.getClass().getName());
+        this.meta.putAll(meta);
+    }
+
+    /**
+     * Returns wrapped action.
+     * @return action
+     */
+    public Action action() {
+        return this.action;
+    }
+
+    @Override
+    public String getName() {
+        return this.action.getName();
+    }
+
+    @Override
+    public Map apply(Map context) {
+        return this.action.apply(context);
+    }
+
+    @Override
+    public CompletionStage<Map> applyAsync(Map context) {
+        return this.action.applyAsync(context);
+    }
+
+    @Override
+    public List<Map> applyAll(List<Map> contexts) {
+        return this.action.applyAll(contexts);
+    }
+
+    @Override
+    public String toString() {
+        return "DelegatingAction{"
+                + "action=" + this.action
+                + ", meta=" + this.meta
+                + '}';
+    }
+}
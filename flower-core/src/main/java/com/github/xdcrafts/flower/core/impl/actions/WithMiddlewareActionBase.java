@@ -17,11 +17,14 @@
 package com.github.xdcrafts.flower.core.impl.actions;
 
 import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.BatchAction;
 import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.impl.Futures;
 import com.github.xdcrafts.flower.tools.WithMetaBase;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 /**
@@ -30,9 +33,11 @@ import java.util.function.Function;
 public abstract class WithMiddlewareActionBase extends WithMetaBase implements Action {
 
     private final Function<Map, Map> applyBody;
+    private final boolean hasMiddleware;
 
     public WithMiddlewareActionBase(List<Middleware> middleware) {
-        if (middleware == null || middleware.isEmpty()) {
+        this.hasMiddleware = middleware != null && !middleware.isEmpty();
+        if (!this.hasMiddleware) {
             this.applyBody = this::act;
         } else {
             final Function<Function<Map, Map>, Function<Map, Map>> reduced = middleware
@@ -48,6 +53,34 @@ public abstract class WithMiddlewareActionBase extends WithMetaBase implements A
         return applyBody.apply(map);
     }
 
+    /**
+     * Middleware wraps synchronous functions, so actions with middleware are applied synchronously
+     * and only actions without it use actAsync.
+     */
+    @Override
+    public CompletionStage<Map> applyAsync(Map map) {
+        return this.hasMiddleware ? Futures.completed(() -> apply(map)) : actAsync(map);
+    }
+
+    /**
+     * Middleware wraps functions of a single context, so batch actions with middleware
+     * are applied to each context in turn and only batch actions without it use actAll.
+     */
+    @Override
+    public List<Map> applyAll(List<Map> contexts) {
+        if (!this.hasMiddleware && this instanceof BatchAction) {
+            return ((BatchAction) this).actAll(contexts);
+        }
+        return Action.super.applyAll(contexts);
+    }
+
+    /**
+     * Implement your 'applyAsync' logic here, by default it calls 'act'.
+     */
+    public CompletionStage<Map> actAsync(Map map) {
+        return Futures.completed(() -> act(map));
+    }
+
     /**
      * Implement your normal 'apply' logic here.
      * This method will be wrapped with list of
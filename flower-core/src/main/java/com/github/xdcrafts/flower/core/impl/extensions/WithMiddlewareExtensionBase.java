@@ -16,17 +16,20 @@
 
 package com.github.xdcrafts.flower.core.impl.extensions;
 
+import com.github.xdcrafts.flower.core.BatchAction;
 import com.github.xdcrafts.flower.core.Extension;
 import com.github.xdcrafts.flower.core.Middleware;
 import com.github.xdcrafts.flower.core.impl.actions.WithMiddlewareActionBase;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Abstract class as a base for any Extension implementation.
+ * Batches are passed to extension's action as they are.
  */
-public abstract class WithMiddlewareExtensionBase extends WithMiddlewareActionBase implements Extension {
+public abstract class WithMiddlewareExtensionBase extends WithMiddlewareActionBase implements Extension, BatchAction {
 
     public WithMiddlewareExtensionBase(List<Middleware> middleware) {
         super(middleware);
@@ -36,4 +39,14 @@ public abstract class WithMiddlewareExtensionBase extends WithMiddlewareActionBa
     public Map act(Map map) {
         return action().apply(map);
     }
+
+    @Override
+    public CompletionStage<Map> actAsync(Map map) {
+        return action().applyAsync(map);
+    }
+
+    @Override
+    public List<Map> actAll(List<Map> contexts) {
+        return action().applyAll(contexts);
+    }
 }
@@ -20,30 +20,48 @@ import com.github.xdcrafts.flower.core.Action;
 import com.github.xdcrafts.flower.core.Core;
 import com.github.xdcrafts.flower.core.Middleware;
 import com.github.xdcrafts.flower.core.Flow;
+import com.github.xdcrafts.flower.core.impl.CancellationToken;
+import com.github.xdcrafts.flower.core.impl.VirtualThreads;
 import com.github.xdcrafts.flower.core.impl.actions.WithMiddlewareActionBase;
+import com.github.xdcrafts.flower.tools.WithMeta;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
-import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotAssoc;
 import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
 import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGetUnsafe;
 
 /**
  * Basic implementation of serial asynchronous flow.
+ * By default each action is submitted to configured executor service as a separate task. If 'fused' is set
+ * then consecutive actions run in a single task and new task is submitted only for actions marked with
+ * 'async-boundary' meta. If 'virtualThreads' is set then each flow invocation runs all its actions sequentially
+ * in a single task on a virtual thread (or on a shared daemon thread pool if runtime does not support virtual
+ * threads), so actions may block cheaply.
+ * Each task checks request's CancellationToken before it runs, token is taken from context or created and put
+ * into it. Cancelling expectation or returned stage cancels token, so remaining tasks are skipped.
  */
 @SuppressWarnings("unchecked")
 public class AsyncFlow extends WithMiddlewareActionBase implements Flow {
 
     public static final String EXECUTOR_SERVICE = "executorService";
+    public static final String VIRTUAL_THREADS = "virtualThreads";
+    public static final String FUSED = "fused";
 
     private final String name;
     private final List<Action> actions;
     private final Map configuration;
     private final ExecutorService executorService;
+    private final boolean virtualThreads;
+    private final boolean fused;
+    private final List<Function<Map, Map>> tasks;
 
     public AsyncFlow(
         String name, List<Action> flow, Map configuration
@@ -58,7 +76,12 @@ public class AsyncFlow extends WithMiddlewareActionBase implements Flow {
         this.name = name;
         this.actions = Collections.unmodifiableList(actions);
         this.configuration = configuration;
-        this.executorService = dotGetUnsafe(configuration, ExecutorService.class, EXECUTOR_SERVICE);
+        this.virtualThreads = dotGet(configuration, Boolean.class, VIRTUAL_THREADS).orElse(false);
+        this.executorService = this.virtualThreads
+            ? dotGet(configuration, ExecutorService.class, EXECUTOR_SERVICE).orElseGet(VirtualThreads::executor)
+            : dotGetUnsafe(configuration, ExecutorService.class, EXECUTOR_SERVICE);
+        this.fused = this.virtualThreads || dotGet(configuration, Boolean.class, FUSED).orElse(false);
+        this.tasks = this.fused ? fuse(this.actions, !this.virtualThreads) : new ArrayList<>(this.actions);
         this.meta.put(Core.ActionMeta.NAME, name);
         this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
         this.meta.put(Core.ActionMeta.MIDDLEWARE, middleware);
@@ -76,13 +99,121 @@ public class AsyncFlow extends WithMiddlewareActionBase implements Flow {
 
     @Override
     public Map act(Map context) {
-        CompletableFuture<Map> expectation = dotGet(
-            context, CompletableFuture.class, Core.FlowMeta.EXPECTATION
-        ).orElse(CompletableFuture.completedFuture(context));
+        final CancellationToken token = token(context);
+        final Map ctx = Core.FlowMeta.CANCELLATION_PATH.assoc(context, token);
+        CompletableFuture<Map> expectation = Core.FlowMeta.EXPECTATION_PATH.getNullable(
+            ctx, CompletableFuture.class
+        );
+        if (expectation == null) {
+            expectation = CompletableFuture.completedFuture(ctx);
+        }
+        for (Function<Map, Map> task : this.tasks) {
+            expectation = expectation.thenApplyAsync(guarded(task, token), this.executorService);
+        }
+        return Core.FlowMeta.EXPECTATION_PATH.assoc(ctx, cancellable(expectation, token));
+    }
+
+    /**
+     * Runs actions on executor without storing expectation in context, returned stage completes
+     * when all actions are done. If context already has an expectation, actions start after it completes,
+     * expectation is removed from the context it produces rather than from supplied context, that stages of
+     * expectation may still modify.
+     */
+    @Override
+    public CompletionStage<Map> actAsync(Map context) {
+        final CancellationToken token = token(context);
+        final CompletableFuture<Map> expectation = Core.FlowMeta.EXPECTATION_PATH.getNullable(
+            context, CompletableFuture.class
+        );
+        CompletableFuture<Map> stage;
+        if (expectation == null) {
+            stage = CompletableFuture.completedFuture(Core.FlowMeta.CANCELLATION_PATH.assoc(context, token));
+        } else {
+            stage = expectation.thenApply(ctx -> Core.FlowMeta.CANCELLATION_PATH.assoc(
+                Core.FlowMeta.EXPECTATION_PATH.dissoc(ctx), token
+            ));
+        }
+        if (this.fused) {
+            for (Function<Map, Map> task : this.tasks) {
+                stage = stage.thenApplyAsync(guarded(task, token), this.executorService);
+            }
+            return cancellable(stage, token);
+        }
         for (Action action : this.actions) {
-            expectation = expectation.thenApplyAsync(action, this.executorService);
+            stage = stage.thenComposeAsync(c -> {
+                token.check();
+                return action.applyAsync(c);
+            }, this.executorService);
+        }
+        return cancellable(stage, token);
+    }
+
+    private static CancellationToken token(Map context) {
+        final CancellationToken token = Core.FlowMeta.CANCELLATION_PATH.getNullable(
+            context, CancellationToken.class
+        );
+        return token == null ? CancellationToken.create() : token;
+    }
+
+    /**
+     * Task that fails with CancellationException instead of running if request is cancelled or expired.
+     */
+    private static Function<Map, Map> guarded(Function<Map, Map> task, CancellationToken token) {
+        return context -> {
+            token.check();
+            return task.apply(context);
+        };
+    }
+
+    /**
+     * Cancels token when future is cancelled, so stages that are not started yet do not run.
+     */
+    private static CompletableFuture<Map> cancellable(CompletableFuture<Map> future, CancellationToken token) {
+        future.whenComplete((result, throwable) -> {
+            if (throwable instanceof CancellationException) {
+                token.cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Splits actions into tasks, each task applies its actions sequentially.
+     * If splitting is enabled then each action marked as async boundary starts a new task.
+     */
+    private static List<Function<Map, Map>> fuse(List<Action> actions, boolean split) {
+        final List<Function<Map, Map>> tasks = new ArrayList<>();
+        List<Action> segment = new ArrayList<>();
+        for (Action action : actions) {
+            if (split && !segment.isEmpty() && isAsyncBoundary(action)) {
+                tasks.add(sequence(segment));
+                segment = new ArrayList<>();
+            }
+            segment.add(action);
+        }
+        if (!segment.isEmpty()) {
+            tasks.add(sequence(segment));
         }
-        return dotAssoc(context, Core.FlowMeta.EXPECTATION, expectation);
+        return tasks;
+    }
+
+    private static Function<Map, Map> sequence(List<Action> segment) {
+        final Action[] steps = segment.toArray(new Action[segment.size()]);
+        if (steps.length == 1) {
+            return steps[0];
+        }
+        return context -> {
+            Map ctx = context;
+            for (Action step : steps) {
+                ctx = step.apply(ctx);
+            }
+            return ctx;
+        };
+    }
+
+    private static boolean isAsyncBoundary(Action action) {
+        return action instanceof WithMeta
+            && Boolean.TRUE.equals(((WithMeta) action).meta().get(Core.ActionMeta.ASYNC_BOUNDARY));
     }
 
     @Override
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.flows;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.impl.Futures;
+import com.github.xdcrafts.flower.core.impl.VirtualThreads;
+import com.github.xdcrafts.flower.tools.WithMeta;
+import com.github.xdcrafts.flower.tools.map.CompiledPath;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
+
+/**
+ * SyncFlow compiled into a dependency graph of its actions by context paths they declare in 'reads' and 'writes'
+ * meta. Action depends on every previous action that writes what it reads or writes, or reads what it writes
+ * (paths conflict if one of them is a prefix of the other). Action that declares neither reads nor writes depends
+ * on all previous actions and all next actions depend on it, so flows of such actions stay sequential.
+ * Actions are grouped into waves, each wave starts when previous one is done. Actions of a wave do not depend on
+ * each other, so they run concurrently, each on its own fork of context, and then paths they declared as written
+ * are copied from their results into context in order of actions. Action that declares its paths runs on a fork
+ * even if it is alone in its wave, so its undeclared changes are dropped regardless of how actions are grouped.
+ * Result is the same as sequential execution would produce if actions change nothing but declared paths.
+ */
+@SuppressWarnings("unchecked")
+public class DagSyncFlow extends SyncFlow {
+
+    public static final String EXECUTOR_SERVICE = "executorService";
+
+    private final ExecutorService executorService;
+    private final Step[][] waves;
+
+    public DagSyncFlow(String name, List<Action> actions, Map configuration) {
+        this(name, actions, configuration, Collections.emptyList());
+    }
+
+    public DagSyncFlow(String name, List<Action> actions, Map configuration, List<Middleware> middleware) {
+        super(name, actions, middleware);
+        this.executorService = dotGet(configuration, ExecutorService.class, EXECUTOR_SERVICE)
+            .orElseGet(VirtualThreads::executor);
+        this.waves = compile(actions);
+    }
+
+    /**
+     * Compiles sync flow into dependency graph with the same name, actions and middleware.
+     * @param flow sync flow
+     * @param configuration configuration with optional executor service
+     * @return compiled flow
+     */
+    public static DagSyncFlow compile(SyncFlow flow, Map configuration) {
+        final Object middleware = flow.meta().get(Core.ActionMeta.MIDDLEWARE);
+        return new DagSyncFlow(
+            flow.getName(),
+            flow.actions(),
+            configuration,
+            middleware == null ? Collections.emptyList() : (List<Middleware>) middleware
+        );
+    }
+
+    /**
+     * Returns number of waves actions were grouped into.
+     */
+    public int size() {
+        return this.waves.length;
+    }
+
+    @Override
+    public Map act(Map context) {
+        Map ctx = context;
+        for (Step[] wave : this.waves) {
+            if (wave.length == 1 && wave[0].barrier) {
+                ctx = wave[0].action.apply(ctx);
+                continue;
+            }
+            final Map[] forks = new Map[wave.length];
+            for (int i = 0; i < wave.length; i++) {
+                forks[i] = ParallelFlow.fork(ctx);
+            }
+            final List<CompletableFuture<Map>> futures = new ArrayList<>(wave.length - 1);
+            for (int i = 0; i < wave.length - 1; i++) {
+                final Action action = wave[i].action;
+                final Map fork = forks[i];
+                futures.add(CompletableFuture.supplyAsync(() -> action.apply(fork), this.executorService));
+            }
+            final Map last = wave[wave.length - 1].action.apply(forks[wave.length - 1]);
+            for (int i = 0; i < futures.size(); i++) {
+                ctx = wave[i].copyWrites(Futures.join(futures.get(i)), ctx);
+            }
+            ctx = wave[wave.length - 1].copyWrites(last, ctx);
+        }
+        return ctx;
+    }
+
+    @Override
+    public CompletionStage<Map> actAsync(Map context) {
+        CompletionStage<Map> stage = CompletableFuture.completedFuture(context);
+        for (Step[] wave : this.waves) {
+            stage = wave.length == 1 && wave[0].barrier
+                ? stage.thenCompose(wave[0].action::applyAsync)
+                : stage.thenCompose(ctx -> waveAsync(wave, ctx));
+        }
+        return stage;
+    }
+
+    private CompletionStage<Map> waveAsync(Step[] wave, Map context) {
+        final CompletableFuture<Map>[] futures = new CompletableFuture[wave.length];
+        for (int i = 0; i < wave.length; i++) {
+            futures[i] = CompletableFuture
+                .completedFuture(ParallelFlow.fork(context))
+                .thenComposeAsync(wave[i].action::applyAsync, this.executorService);
+        }
+        return CompletableFuture.allOf(futures).thenApply(ignored -> {
+            Map ctx = context;
+            for (int i = 0; i < wave.length; i++) {
+                ctx = wave[i].copyWrites(futures[i].join(), ctx);
+            }
+            return ctx;
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "DagSyncFlow{"
+                + "name='" + getName() + '\''
+                + ", actions=" + actions()
+                + ", waves=" + this.waves.length
+                + '}';
+    }
+
+    private static Step[][] compile(List<Action> actions) {
+        final Step[] steps = new Step[actions.size()];
+        final List<List<Step>> waves = new ArrayList<>();
+        for (int i = 0; i < steps.length; i++) {
+            final Step step = new Step(actions.get(i));
+            int wave = 0;
+            for (int j = 0; j < i; j++) {
+                if (step.dependsOn(steps[j])) {
+                    wave = Math.max(wave, steps[j].wave + 1);
+                }
+            }
+            step.wave = wave;
+            steps[i] = step;
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(wave).add(step);
+        }
+        final Step[][] result = new Step[waves.size()][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = waves.get(i).toArray(new Step[waves.get(i).size()]);
+        }
+        return result;
+    }
+
+    /**
+     * Action with its declared paths.
+     */
+    private static final class Step {
+
+        private final Action action;
+        private final CompiledPath[] reads;
+        private final CompiledPath[] writes;
+        private final boolean barrier;
+        private int wave;
+
+        Step(Action action) {
+            this.action = action;
+            final Map<String, Object> meta = action instanceof WithMeta
+                ? ((WithMeta) action).meta()
+                : Collections.emptyMap();
+            final Object declaredReads = meta.get(Core.ActionMeta.READS);
+            final Object declaredWrites = meta.get(Core.ActionMeta.WRITES);
+            this.barrier = declaredReads == null && declaredWrites == null;
+            this.reads = paths(declaredReads);
+            this.writes = paths(declaredWrites);
+        }
+
+        boolean dependsOn(Step previous) {
+            return this.barrier
+                || previous.barrier
+                || conflict(previous.writes, this.reads)
+                || conflict(previous.writes, this.writes)
+                || conflict(previous.reads, this.writes);
+        }
+
+        /**
+         * Copies values of declared writes from action result into context, absent values are removed.
+         */
+        Map copyWrites(Map result, Map context) {
+            Map ctx = context;
+            for (CompiledPath path : this.writes) {
+                final Object value = path.getNullable(result);
+                ctx = value == null ? path.dissoc(ctx) : path.assoc(ctx, value);
+            }
+            return ctx;
+        }
+
+        private static CompiledPath[] paths(Object declaration) {
+            final List<CompiledPath> paths = new ArrayList<>();
+            if (declaration instanceof String) {
+                for (String path : ((String) declaration).split(",")) {
+                    if (!path.trim().isEmpty()) {
+                        paths.add(CompiledPath.compile(path.trim()));
+                    }
+                }
+            } else if (declaration instanceof Collection) {
+                for (Object path : (Collection) declaration) {
+                    paths.add(CompiledPath.compile(path.toString().trim()));
+                }
+            } else if (declaration != null) {
+                throw new IllegalArgumentException("Unsupported declaration of paths: " + declaration);
+            }
+            return paths.toArray(new CompiledPath[paths.size()]);
+        }
+
+        private static boolean conflict(CompiledPath[] first, CompiledPath[] second) {
+            for (CompiledPath a : first) {
+                for (CompiledPath b : second) {
+                    if (isPrefix(a.path(), b.path()) || isPrefix(b.path(), a.path())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean isPrefix(Object[] prefix, Object[] path) {
+            if (prefix.length > path.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (!prefix[i].equals(path[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.flows;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.core.Flow;
+import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.impl.Futures;
+import com.github.xdcrafts.flower.core.impl.actions.WithMiddlewareActionBase;
+import com.github.xdcrafts.flower.tools.ClassApi;
+import com.github.xdcrafts.flower.tools.map.CompiledPath;
+import com.github.xdcrafts.flower.tools.map.PersistentMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGetString;
+
+/**
+ * Flow that applies its action to each element of a list placed in context at 'items' path and writes list of
+ * results to 'result' path (the same as 'items' by default). Results keep order of elements unless 'ordered' is
+ * false, then every chunk appends its results as soon as it is done and no per element index is kept.
+ * Action is applied to a context derived from flow context by putting element under 'item' key, result of each
+ * application is the value at 'resultItem' path of returned context ('item' by default). Derived context of
+ * PersistentMap is its new version, derived context of any other map is its shallow copy of the same class (or
+ * HashMap if that class has no public no-args constructor), so action should not modify nested maps of a mutable
+ * context.
+ * Elements are processed on common fork join pool, list is split in halves until chunks are not larger than
+ * 'threshold' elements or a quarter of per thread share. Flow with 'parallelism' set uses a pool of that many
+ * threads shared by all flows with the same parallelism, a pool of its own may be set with 'forkJoinPool' key.
+ * Lists not larger than 'threshold' and flows with parallelism of 1 are processed in calling thread.
+ * Worker of another fork join pool waits for elements through ForkJoinPool.managedBlock instead of
+ * ForkJoinPool.invoke, that does not compensate it.
+ */
+@SuppressWarnings("unchecked")
+public class ForEachFlow extends WithMiddlewareActionBase implements Flow {
+
+    public static final String ITEMS = "items";
+    public static final String ITEM = "item";
+    public static final String RESULT = "result";
+    public static final String RESULT_ITEM = "resultItem";
+    public static final String PARALLELISM = "parallelism";
+    public static final String THRESHOLD = "threshold";
+    public static final String FORK_JOIN_POOL = "forkJoinPool";
+    public static final String ORDERED = "ordered";
+
+    private static final String DEFAULT_ITEM = "item";
+    private static final int DEFAULT_THRESHOLD = 64;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final ConcurrentMap<Integer, ForkJoinPool> SHARED_POOLS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Action action;
+    private final Map configuration;
+    private final CompiledPath itemsPath;
+    private final String itemKey;
+    private final CompiledPath resultPath;
+    private final CompiledPath resultItemPath;
+    private final int parallelism;
+    private final int threshold;
+    private final boolean ordered;
+    private final ForkJoinPool pool;
+
+    public ForEachFlow(String name, Action action, Map configuration) {
+        this(name, action, configuration, Collections.emptyList());
+    }
+
+    public ForEachFlow(String name, Action action, Map configuration, List<Middleware> middleware) {
+        super(middleware);
+        this.name = name;
+        this.action = action;
+        this.configuration = configuration;
+        final String items = dotGetString(configuration, ITEMS)
+            .orElseThrow(() -> new IllegalArgumentException("'" + ITEMS + "' path is required."));
+        this.itemsPath = CompiledPath.compile(items);
+        this.itemKey = dotGetString(configuration, ITEM).orElse(DEFAULT_ITEM);
+        this.resultPath = CompiledPath.compile(dotGetString(configuration, RESULT).orElse(items));
+        this.resultItemPath = CompiledPath.compile(dotGetString(configuration, RESULT_ITEM).orElse(this.itemKey));
+        this.threshold = Math.max(1, dotGet(configuration, Integer.class, THRESHOLD).orElse(DEFAULT_THRESHOLD));
+        this.ordered = dotGet(configuration, Boolean.class, ORDERED).orElse(true);
+        final ForkJoinPool configuredPool = dotGet(configuration, ForkJoinPool.class, FORK_JOIN_POOL)
+            .orElseGet(() -> dotGet(configuration, Integer.class, PARALLELISM)
+                .map(threads -> SHARED_POOLS.computeIfAbsent(Math.max(1, threads), ForkJoinPool::new))
+                .orElseGet(ForkJoinPool::commonPool));
+        this.parallelism = configuredPool.getParallelism();
+        this.pool = this.parallelism == 1 ? null : configuredPool;
+        this.meta.put(Core.ActionMeta.NAME, name);
+        this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
+        this.meta.put(Core.ActionMeta.MIDDLEWARE, middleware);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public List<Action> actions() {
+        return Collections.singletonList(this.action);
+    }
+
+    @Override
+    public Map act(Map context) {
+        final Object value = this.itemsPath.getNullable(context);
+        if (value == null) {
+            return context;
+        }
+        final Batch batch = new Batch(context, elements(value));
+        final int size = batch.elements.size();
+        if (this.pool == null || size <= this.threshold) {
+            batch.apply(0, size);
+        } else {
+            final int grain = Math.max(this.threshold, size / (this.parallelism * CHUNKS_PER_THREAD) + 1);
+            final Chunk chunk = new Chunk(batch, 0, size, grain);
+            if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() != this.pool) {
+                Futures.join(CompletableFuture.runAsync(chunk::invoke, this.pool));
+            } else {
+                this.pool.invoke(chunk);
+            }
+        }
+        return this.resultPath.assoc(context, batch.results());
+    }
+
+    @Override
+    public CompletionStage<Map> actAsync(Map context) {
+        if (this.pool == null) {
+            return super.actAsync(context);
+        }
+        return CompletableFuture.supplyAsync(() -> act(context), this.pool);
+    }
+
+    private List elements(Object value) {
+        if (value instanceof List && value instanceof RandomAccess) {
+            return (List) value;
+        }
+        if (value instanceof Collection) {
+            return new ArrayList((Collection) value);
+        }
+        throw new IllegalArgumentException("'" + this.itemsPath + "' should be a List or Collection.");
+    }
+
+    /**
+     * Elements of a single application of flow together with their results.
+     */
+    private final class Batch {
+
+        private final Map source;
+        private final Supplier<? extends Map> nodeFactory;
+        private final List elements;
+        private final Object[] indexed;
+        private final Queue<List> chunks;
+
+        private Batch(Map context, List items) {
+            this.source = context;
+            this.nodeFactory = context instanceof PersistentMap
+                ? null
+                : ClassApi.instanceSupplier(context.getClass(), HashMap::new);
+            this.elements = items;
+            this.indexed = ordered ? new Object[items.size()] : null;
+            this.chunks = ordered ? null : new ConcurrentLinkedQueue<>();
+        }
+
+        private void apply(int from, int to) {
+            if (this.indexed != null) {
+                for (int i = from; i < to; i++) {
+                    this.indexed[i] = applyTo(this.elements.get(i));
+                }
+            } else {
+                final List chunk = new ArrayList(to - from);
+                for (int i = from; i < to; i++) {
+                    chunk.add(applyTo(this.elements.get(i)));
+                }
+                this.chunks.add(chunk);
+            }
+        }
+
+        private Object applyTo(Object element) {
+            return resultItemPath.getNullable(action.apply(derive(element)));
+        }
+
+        private List results() {
+            if (this.indexed != null) {
+                return new ArrayList<>(Arrays.asList(this.indexed));
+            }
+            final List results = new ArrayList(this.elements.size());
+            this.chunks.forEach(results::addAll);
+            return results;
+        }
+
+        private Map derive(Object element) {
+            if (this.nodeFactory == null) {
+                return ((PersistentMap) this.source).assoc(itemKey, element);
+            }
+            final Map derived = this.nodeFactory.get();
+            derived.putAll(this.source);
+            derived.put(itemKey, element);
+            return derived;
+        }
+    }
+
+    /**
+     * Range of batch elements that is split in halves until it is not larger than grain.
+     */
+    private static final class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Batch batch;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private Chunk(Batch batch, int from, int to, int grain) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.grain) {
+                this.batch.apply(this.from, this.to);
+            } else {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(
+                    new Chunk(this.batch, this.from, middle, this.grain),
+                    new Chunk(this.batch, middle, this.to, this.grain)
+                );
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ForEachFlow{"
+                + "name='" + this.name + '\''
+                + ", action=" + this.action
+                + ", configuration=" + this.configuration
+                + '}';
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.flows;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.Selector;
+import com.github.xdcrafts.flower.core.impl.selectors.WithMiddlewareSelectorBase;
+import com.github.xdcrafts.flower.tools.WithMeta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SyncFlow that flattens its actions into a single array of steps and runs them in a loop
+ * instead of a chain of composed functions. Nested sync flows and selectors without middleware
+ * are inlined: flows are replaced by their actions, sequential selectors select actions right in the loop.
+ * Everything else, including actions with middleware, is a single step that is applied as is,
+ * so result is the same as SyncFlow would produce.
+ */
+public class FusedSyncFlow extends SyncFlow {
+
+    private final Action[] steps;
+    private final Selector[] selectors;
+
+    public FusedSyncFlow(String name, List<Action> actions) {
+        this(name, actions, Collections.emptyList());
+    }
+
+    public FusedSyncFlow(String name, List<Action> actions, List<Middleware> middleware) {
+        super(name, actions, middleware);
+        final List<Action> flattened = new ArrayList<>();
+        flatten(actions, flattened);
+        this.steps = flattened.toArray(new Action[flattened.size()]);
+        this.selectors = new Selector[this.steps.length];
+        for (int i = 0; i < this.steps.length; i++) {
+            if (isInlinedSelector(this.steps[i])) {
+                this.selectors[i] = (Selector) this.steps[i];
+            }
+        }
+    }
+
+    /**
+     * Returns number of steps this flow was flattened to.
+     */
+    public int size() {
+        return this.steps.length;
+    }
+
+    @Override
+    public Map act(Map context) {
+        Map ctx = context;
+        final Action[] currentSteps = this.steps;
+        for (int i = 0; i < currentSteps.length; i++) {
+            final Selector selector = this.selectors[i];
+            if (selector == null) {
+                ctx = currentSteps[i].apply(ctx);
+            } else {
+                final List<Action> selected = selector.selectAction(ctx);
+                for (int j = 0, size = selected.size(); j < size; j++) {
+                    ctx = selected.get(j).apply(ctx);
+                }
+            }
+        }
+        return ctx;
+    }
+
+    @Override
+    public String toString() {
+        return "FusedSyncFlow{"
+                + "name='" + getName() + '\''
+                + ", actions=" + actions()
+                + ", steps=" + this.steps.length
+                + '}';
+    }
+
+    private static void flatten(List<Action> actions, List<Action> steps) {
+        for (Action action : actions) {
+            if (isInlinedFlow(action)) {
+                flatten(((SyncFlow) action).actions(), steps);
+            } else {
+                steps.add(action);
+            }
+        }
+    }
+
+    private static boolean isInlinedFlow(Action action) {
+        final Class<?> clazz = action.getClass();
+        return (clazz == SyncFlow.class || clazz == FusedSyncFlow.class) && hasNoMiddleware(action);
+    }
+
+    /**
+     * Selector can be inlined only if it keeps default act and sequential execution policy, that is it applies
+     * selected actions one by one. Parallel selector runs its actions on forks and merges them, so it is a step.
+     */
+    private static boolean isInlinedSelector(Action action) {
+        if (!(action instanceof WithMiddlewareSelectorBase) || !hasNoMiddleware(action)) {
+            return false;
+        }
+        if (((WithMiddlewareSelectorBase) action).getExecutionPolicy()
+            != WithMiddlewareSelectorBase.ExecutionPolicy.SEQUENTIAL) {
+            return false;
+        }
+        try {
+            return action.getClass().getMethod("act", Map.class).getDeclaringClass()
+                == WithMiddlewareSelectorBase.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasNoMiddleware(Action action) {
+        if (!(action instanceof WithMeta)) {
+            return false;
+        }
+        final Object middleware = ((WithMeta) action).meta().get(Core.ActionMeta.MIDDLEWARE);
+        return middleware == null || middleware instanceof Collection && ((Collection) middleware).isEmpty();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.flows;
+
+import com.github.xdcrafts.flower.tools.ClassApi;
+import com.github.xdcrafts.flower.tools.map.PersistentMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Strategies of joining contexts produced by parallel branches back into original context.
+ * Each branch result is compared with original context and only its changes (new, changed and removed keys)
+ * are applied to original context in order of branches. Changes of all branches are computed before any of them
+ * is applied. Original context is modified in place, or its new version is returned if it is PersistentMap.
+ */
+@SuppressWarnings("unchecked")
+public enum MergeStrategy implements BiFunction<Map, List<Map>, Map> {
+
+    /**
+     * Branches must change disjoint sets of top level keys, otherwise IllegalStateException is thrown.
+     */
+    KEY_DISJOINT_UNION {
+        @Override
+        public Map apply(Map context, List<Map> branches) {
+            final List<Map<Object, Object>> changes = changes(context, branches, false);
+            final Set<Object> changedKeys = new HashSet<>();
+            for (Map<Object, Object> branchChanges : changes) {
+                for (Object key : branchChanges.keySet()) {
+                    if (!changedKeys.add(key)) {
+                        throw new IllegalStateException("Key '" + key + "' is changed by more than one branch.");
+                    }
+                }
+            }
+            return merge(context, changes);
+        }
+    },
+
+    /**
+     * Changes of nested maps are merged recursively, so branches may change or add different keys of the same
+     * nested map. If several branches change the same key, the last branch in order wins.
+     */
+    DEEP_MERGE {
+        @Override
+        public Map apply(Map context, List<Map> branches) {
+            return merge(context, changes(context, branches, true));
+        }
+    },
+
+    /**
+     * Top level values are replaced as a whole, if several branches change the same key, the last branch
+     * in order wins.
+     */
+    LAST_WRITER_WINS {
+        @Override
+        public Map apply(Map context, List<Map> branches) {
+            return merge(context, changes(context, branches, false));
+        }
+    };
+
+    private static final Object REMOVED = new Object();
+
+    /**
+     * Merges branches into context.
+     * @param context original context
+     * @param branches contexts produced by branches, in order of branches
+     * @return merged context
+     */
+    @Override
+    public abstract Map apply(Map context, List<Map> branches);
+
+    /**
+     * Returns strategy by its name, both 'DEEP_MERGE' and 'deep-merge' forms are accepted.
+     * @param name strategy name
+     * @return merge strategy
+     */
+    public static MergeStrategy of(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Nested map changes.
+     */
+    private static final class Nested {
+        private final Map<Object, Object> changes;
+
+        Nested(Map<Object, Object> changes) {
+            this.changes = changes;
+        }
+    }
+
+    private static List<Map<Object, Object>> changes(Map context, List<Map> branches, boolean deep) {
+        final List<Map<Object, Object>> changes = new ArrayList<>(branches.size());
+        for (Map branch : branches) {
+            changes.add(changes(context, branch, deep));
+        }
+        return changes;
+    }
+
+    private static Map<Object, Object> changes(Map before, Map after, boolean deep) {
+        if (before == after) {
+            return Collections.emptyMap();
+        }
+        final Map<Object, Object> changes = new LinkedHashMap<>();
+        for (Map.Entry entry : (Set<Map.Entry>) after.entrySet()) {
+            final Object key = entry.getKey();
+            final Object value = entry.getValue();
+            final Object previous = before.get(key);
+            if (previous == value && (value != null || before.containsKey(key))) {
+                continue;
+            }
+            if (deep && value instanceof Map && (previous == null || previous instanceof Map)) {
+                final Map<Object, Object> nested = changes(
+                    previous == null ? Collections.emptyMap() : (Map) previous, (Map) value, true
+                );
+                if (!nested.isEmpty()) {
+                    changes.put(key, new Nested(nested));
+                } else if (previous == null) {
+                    changes.put(key, value);
+                }
+            } else if (value == null || !value.equals(previous)) {
+                changes.put(key, value);
+            }
+        }
+        for (Object key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                changes.put(key, REMOVED);
+            }
+        }
+        return changes;
+    }
+
+    private static Map merge(Map context, List<Map<Object, Object>> changes) {
+        Map result = context;
+        for (Map<Object, Object> branchChanges : changes) {
+            result = merge(result, branchChanges);
+        }
+        return result;
+    }
+
+    private static Map merge(Map target, Map<Object, Object> changes) {
+        Map result = target;
+        for (Map.Entry<Object, Object> change : changes.entrySet()) {
+            final Object key = change.getKey();
+            final Object value = change.getValue();
+            if (value == REMOVED) {
+                if (result instanceof PersistentMap) {
+                    result = ((PersistentMap) result).dissoc(key);
+                } else {
+                    result.remove(key);
+                }
+                continue;
+            }
+            Object newValue = value;
+            if (value instanceof Nested) {
+                final Object current = result.get(key);
+                final Map node = current instanceof Map ? (Map) current : emptyNode(result);
+                newValue = merge(node, ((Nested) value).changes);
+            }
+            if (result instanceof PersistentMap) {
+                result = ((PersistentMap) result).assoc(key, newValue);
+            } else {
+                result.put(key, newValue);
+            }
+        }
+        return result;
+    }
+
+    private static Map emptyNode(Map parent) {
+        return parent instanceof PersistentMap
+            ? PersistentMap.empty()
+            : ClassApi.instanceSupplier(parent.getClass(), HashMap::new).get();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.flows;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.core.Flow;
+import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.impl.Futures;
+import com.github.xdcrafts.flower.core.impl.VirtualThreads;
+import com.github.xdcrafts.flower.core.impl.actions.WithMiddlewareActionBase;
+import com.github.xdcrafts.flower.tools.ClassApi;
+import com.github.xdcrafts.flower.tools.map.PersistentMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGetNullable;
+
+/**
+ * Flow that applies all its actions concurrently, each to its own fork of context, and then joins their results
+ * with merge strategy. Fork of PersistentMap context is the same map, any other context is copied with all nested
+ * maps. All actions but the last one are submitted to executor service, the last one is applied in calling thread.
+ * Executor service defaults to virtual threads executor, merge strategy defaults to deep merge and may be
+ * set either with MergeStrategy, its name, or any function of context and list of branch results.
+ */
+@SuppressWarnings("unchecked")
+public class ParallelFlow extends WithMiddlewareActionBase implements Flow {
+
+    public static final String EXECUTOR_SERVICE = "executorService";
+    public static final String MERGE_STRATEGY = "mergeStrategy";
+
+    private static final Supplier<Map> HASH_MAP = HashMap::new;
+
+    private final String name;
+    private final List<Action> actions;
+    private final Action[] steps;
+    private final Map configuration;
+    private final ExecutorService executorService;
+    private final BiFunction<Map, List<Map>, Map> mergeStrategy;
+
+    public ParallelFlow(String name, List<Action> actions, Map configuration) {
+        this(name, actions, configuration, Collections.emptyList());
+    }
+
+    public ParallelFlow(String name, List<Action> actions, Map configuration, List<Middleware> middleware) {
+        super(middleware);
+        this.name = name;
+        this.actions = Collections.unmodifiableList(actions);
+        this.steps = actions.toArray(new Action[actions.size()]);
+        this.configuration = configuration;
+        this.executorService = dotGet(configuration, ExecutorService.class, EXECUTOR_SERVICE)
+            .orElseGet(VirtualThreads::executor);
+        this.mergeStrategy = mergeStrategy(dotGetNullable(configuration, MERGE_STRATEGY));
+        this.meta.put(Core.ActionMeta.NAME, name);
+        this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
+        this.meta.put(Core.ActionMeta.MIDDLEWARE, middleware);
+    }
+
+    private static BiFunction<Map, List<Map>, Map> mergeStrategy(Object value) {
+        if (value == null) {
+            return MergeStrategy.DEEP_MERGE;
+        }
+        if (value instanceof String) {
+            return MergeStrategy.of((String) value);
+        }
+        if (value instanceof BiFunction) {
+            return (BiFunction<Map, List<Map>, Map>) value;
+        }
+        throw new IllegalArgumentException("Unsupported merge strategy: " + value);
+    }
+
+    /**
+     * Returns fork of context that can be changed independently of it.
+     * PersistentMap is returned as is, any other map is copied together with all its nested maps,
+     * every map is copied with its own class, or as HashMap if that class has no public no-args constructor.
+     * @param context context
+     * @return fork of context
+     */
+    public static Map fork(Map context) {
+        if (context instanceof PersistentMap) {
+            return context;
+        }
+        return copy(context);
+    }
+
+    private static Map copy(Map map) {
+        final Map copy = ClassApi.instanceSupplier(map.getClass(), HASH_MAP).get();
+        for (Map.Entry entry : (Set<Map.Entry>) map.entrySet()) {
+            final Object value = entry.getValue();
+            copy.put(
+                entry.getKey(), value instanceof Map && !(value instanceof PersistentMap) ? copy((Map) value) : value
+            );
+        }
+        return copy;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public List<Action> actions() {
+        return this.actions;
+    }
+
+    @Override
+    public Map act(Map context) {
+        final int size = this.steps.length;
+        if (size == 0) {
+            return context;
+        }
+        final Map[] forks = new Map[size];
+        for (int i = 0; i < size; i++) {
+            forks[i] = fork(context);
+        }
+        final List<CompletableFuture<Map>> futures = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            final Action step = this.steps[i];
+            final Map fork = forks[i];
+            futures.add(CompletableFuture.supplyAsync(() -> step.apply(fork), this.executorService));
+        }
+        final Map last = this.steps[size - 1].apply(forks[size - 1]);
+        final List<Map> results = new ArrayList<>(size);
+        for (CompletableFuture<Map> future : futures) {
+            results.add(Futures.join(future));
+        }
+        results.add(last);
+        return this.mergeStrategy.apply(context, results);
+    }
+
+    @Override
+    public CompletionStage<Map> actAsync(Map context) {
+        final List<CompletableFuture<Map>> futures = new ArrayList<>(this.steps.length);
+        for (Action step : this.steps) {
+            final Map fork = fork(context);
+            futures.add(
+                CompletableFuture.completedFuture(fork).thenComposeAsync(step::applyAsync, this.executorService)
+            );
+        }
+        return CompletableFuture
+            .allOf(futures.toArray(new CompletableFuture[futures.size()]))
+            .thenApply(ignored -> {
+                final List<Map> results = new ArrayList<>(futures.size());
+                for (CompletableFuture<Map> future : futures) {
+                    results.add(future.join());
+                }
+                return this.mergeStrategy.apply(context, results);
+            });
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelFlow{"
+                + "name='" + this.name + '\''
+                + ", actions=" + this.actions
+                + ", configuration=" + this.configuration
+                + '}';
+    }
+}
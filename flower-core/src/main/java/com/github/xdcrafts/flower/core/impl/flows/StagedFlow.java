@@ -0,0 +1,438 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.flows;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
+import com.github.xdcrafts.flower.core.Flow;
+import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.core.impl.Futures;
+import com.github.xdcrafts.flower.core.impl.actions.WithMiddlewareActionBase;
+import com.github.xdcrafts.flower.tools.Histogram;
+import com.github.xdcrafts.flower.tools.RingBuffer;
+import com.github.xdcrafts.flower.tools.WithMeta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
+
+/**
+ * Asynchronous flow that runs as a staged pipeline: each stage has its own bounded queue and its own worker
+ * threads that apply stage's actions and pass context to the next stage's queue. Consecutive actions with the same
+ * 'stage' meta share a stage, any other action is a stage of its own. Number of workers and queue capacity of a
+ * stage are taken from 'stage-threads' and 'stage-capacity' meta of its actions, flow's 'threads' (1) and
+ * 'capacity' (1024) configuration are defaults. Queues are lock free rings, a producer that finds next queue full
+ * waits for it, so slow stage holds back the stages before it instead of piling contexts up. Idle workers spin,
+ * then yield, then park until a producer signals them, so idle flow uses no processor time. Queue depth, service
+ * time and utilization of every stage are exposed by stats. Workers are daemon threads that run until shutdown.
+ */
+public class StagedFlow extends WithMiddlewareActionBase implements Flow {
+
+    public static final String THREADS = "threads";
+    public static final String CAPACITY = "capacity";
+
+    private static final int DEFAULT_THREADS = 1;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int SPINS = 100;
+    private static final int YIELDS = 200;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final String name;
+    private final List<Action> actions;
+    private final Map configuration;
+    private final Stage[] stages;
+    private volatile boolean running = true;
+
+    public StagedFlow(String name, List<Action> actions, Map configuration) {
+        this(name, actions, configuration, Collections.emptyList());
+    }
+
+    public StagedFlow(String name, List<Action> actions, Map configuration, List<Middleware> middleware) {
+        super(middleware);
+        this.name = name;
+        this.actions = Collections.unmodifiableList(actions);
+        this.configuration = configuration;
+        final int defaultThreads = dotGet(configuration, Integer.class, THREADS).orElse(DEFAULT_THREADS);
+        final int defaultCapacity = dotGet(configuration, Integer.class, CAPACITY).orElse(DEFAULT_CAPACITY);
+        final List<List<Action>> groups = new ArrayList<>();
+        Object previousStage = null;
+        for (Action action : actions) {
+            final Object stage = stageOf(action);
+            if (stage == null || !stage.equals(previousStage)) {
+                groups.add(new ArrayList<>());
+            }
+            groups.get(groups.size() - 1).add(action);
+            previousStage = stage;
+        }
+        this.stages = new Stage[groups.size()];
+        for (int i = groups.size() - 1; i >= 0; i--) {
+            final List<Action> group = groups.get(i);
+            this.stages[i] = new Stage(
+                Objects.toString(stageOf(group.get(0)), group.get(0).getName()),
+                group.toArray(new Action[group.size()]),
+                Math.max(1, declared(group, Core.ActionMeta.STAGE_THREADS, defaultThreads)),
+                declared(group, Core.ActionMeta.STAGE_CAPACITY, defaultCapacity),
+                i == groups.size() - 1 ? null : this.stages[i + 1]
+            );
+        }
+        this.meta.put(Core.ActionMeta.NAME, name);
+        this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
+        this.meta.put(Core.ActionMeta.MIDDLEWARE, middleware);
+        for (Stage stage : this.stages) {
+            stage.start();
+        }
+    }
+
+    private static Object stageOf(Action action) {
+        return action instanceof WithMeta ? ((WithMeta) action).meta().get(Core.ActionMeta.STAGE) : null;
+    }
+
+    private static int declared(List<Action> group, String key, int defaultValue) {
+        int value = 0;
+        for (Action action : group) {
+            if (action instanceof WithMeta) {
+                final Object declaredValue = ((WithMeta) action).meta().get(key);
+                if (declaredValue != null) {
+                    value = Math.max(value, Integer.parseInt(declaredValue.toString()));
+                }
+            }
+        }
+        return value == 0 ? defaultValue : value;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public List<Action> actions() {
+        return this.actions;
+    }
+
+    /**
+     * Returns number of stages actions were grouped into.
+     */
+    public int size() {
+        return this.stages.length;
+    }
+
+    @Override
+    public Map act(Map context) {
+        return Futures.join(actAsync(context).toCompletableFuture());
+    }
+
+    @Override
+    public CompletionStage<Map> actAsync(Map context) {
+        if (this.stages.length == 0) {
+            return CompletableFuture.completedFuture(context);
+        }
+        final Task task = new Task(context);
+        this.stages[0].enqueue(task);
+        return task.result;
+    }
+
+    /**
+     * Returns snapshot of statistics of every stage in order of stages.
+     * @return stage statistics
+     */
+    public List<StageStats> stats() {
+        final List<StageStats> stats = new ArrayList<>(this.stages.length);
+        for (Stage stage : this.stages) {
+            stats.add(stage.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Stops workers, contexts that are still queued or submitted afterwards are completed exceptionally
+     * with RejectedExecutionException.
+     */
+    public void shutdown() {
+        this.running = false;
+        for (Stage stage : this.stages) {
+            for (Thread worker : stage.workers) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    private static void idle(int attempt) {
+        if (attempt < SPINS) {
+            return;
+        }
+        if (attempt < YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * Context moving through stages together with its future result.
+     */
+    private static final class Task {
+        Map context;
+        final CompletableFuture<Map> result = new CompletableFuture<>();
+
+        Task(Map context) {
+            this.context = context;
+        }
+    }
+
+    /**
+     * Group of actions with its queue and workers.
+     */
+    private final class Stage {
+
+        private final String stageName;
+        private final Action[] steps;
+        private final RingBuffer<Task> queue;
+        private final Thread[] workers;
+        private final Stage next;
+        private final Histogram serviceMicros = new Histogram();
+        private final LongAdder busyNanos = new LongAdder();
+        private final long startedAt = System.nanoTime();
+        private final AtomicLong signals = new AtomicLong();
+        private final AtomicIntegerArray sleeping;
+
+        private Stage(String stageName, Action[] steps, int threads, int capacity, Stage next) {
+            this.stageName = stageName;
+            this.steps = steps;
+            this.queue = new RingBuffer<>(capacity);
+            this.next = next;
+            this.workers = new Thread[threads];
+            this.sleeping = new AtomicIntegerArray(threads);
+            for (int i = 0; i < threads; i++) {
+                final int index = i;
+                this.workers[i] = new Thread(() -> work(index), "flower-stage-" + name + "-" + stageName + "-" + i);
+                this.workers[i].setDaemon(true);
+            }
+        }
+
+        private void start() {
+            for (Thread worker : this.workers) {
+                worker.start();
+            }
+        }
+
+        private void enqueue(Task task) {
+            int attempt = 0;
+            while (running) {
+                if (this.queue.offer(task)) {
+                    signal();
+                    if (!running) {
+                        // Workers may have drained queue already, so task is rejected here
+                        drain();
+                    }
+                    return;
+                }
+                idle(attempt++);
+            }
+            reject(task);
+        }
+
+        /**
+         * Wakes one sleeping worker, if any. Signal counter is advanced after task is offered, so worker that
+         * read the counter before that either sees it changed or is seen sleeping here.
+         */
+        private void signal() {
+            this.signals.incrementAndGet();
+            for (int i = 0; i < this.workers.length; i++) {
+                if (this.sleeping.get(i) == 1 && this.sleeping.compareAndSet(i, 1, 0)) {
+                    LockSupport.unpark(this.workers[i]);
+                    return;
+                }
+            }
+        }
+
+        private void work(int index) {
+            int attempt = 0;
+            while (running) {
+                final long signal = this.signals.get();
+                final Task task = this.queue.poll();
+                if (task != null) {
+                    attempt = 0;
+                    process(task);
+                } else if (attempt < YIELDS) {
+                    idle(attempt++);
+                } else {
+                    this.sleeping.set(index, 1);
+                    if (running && this.signals.get() == signal) {
+                        LockSupport.park(this);
+                    }
+                    this.sleeping.set(index, 0);
+                }
+            }
+            drain();
+        }
+
+        private void drain() {
+            Task task = this.queue.poll();
+            while (task != null) {
+                reject(task);
+                task = this.queue.poll();
+            }
+        }
+
+        private void reject(Task task) {
+            task.result.completeExceptionally(new RejectedExecutionException("Flow '" + name + "' is shut down."));
+        }
+
+        private void process(Task task) {
+            final long start = System.nanoTime();
+            Map context = task.context;
+            Throwable failure = null;
+            try {
+                for (Action step : this.steps) {
+                    context = step.apply(context);
+                }
+            } catch (Throwable t) {
+                failure = t;
+            }
+            final long spent = System.nanoTime() - start;
+            this.busyNanos.add(spent);
+            this.serviceMicros.record(TimeUnit.NANOSECONDS.toMicros(spent));
+            if (failure != null) {
+                task.result.completeExceptionally(failure);
+            } else if (this.next == null) {
+                task.result.complete(context);
+            } else {
+                task.context = context;
+                this.next.enqueue(task);
+            }
+        }
+
+        private StageStats stats() {
+            final long elapsed = Math.max(1, System.nanoTime() - this.startedAt);
+            return new StageStats(
+                this.stageName,
+                this.workers.length,
+                this.queue.capacity(),
+                this.queue.size(),
+                this.serviceMicros.snapshot(),
+                Math.min(1.0, (double) this.busyNanos.sum() / elapsed / this.workers.length)
+            );
+        }
+    }
+
+    /**
+     * Stage statistics snapshot.
+     */
+    public static final class StageStats {
+
+        private final String name;
+        private final int threads;
+        private final int capacity;
+        private final int queueDepth;
+        private final Histogram.Snapshot serviceMicros;
+        private final double utilization;
+
+        StageStats(
+            String name, int threads, int capacity, int queueDepth, Histogram.Snapshot serviceMicros, double utilization
+        ) {
+            this.name = name;
+            this.threads = threads;
+            this.capacity = capacity;
+            this.queueDepth = queueDepth;
+            this.serviceMicros = serviceMicros;
+            this.utilization = utilization;
+        }
+
+        /**
+         * Stage name, that is 'stage' meta of its actions or name of its single action.
+         * @return name
+         */
+        public String name() {
+            return this.name;
+        }
+
+        /**
+         * Number of worker threads.
+         * @return threads
+         */
+        public int threads() {
+            return this.threads;
+        }
+
+        /**
+         * Queue capacity.
+         * @return capacity
+         */
+        public int capacity() {
+            return this.capacity;
+        }
+
+        /**
+         * Number of queued contexts at the moment of snapshot.
+         * @return queue depth
+         */
+        public int queueDepth() {
+            return this.queueDepth;
+        }
+
+        /**
+         * Time in microseconds stage spent on each context, including processed and failed ones.
+         * @return service time histogram
+         */
+        public Histogram.Snapshot serviceMicros() {
+            return this.serviceMicros;
+        }
+
+        /**
+         * Fraction of time stage workers were busy since stage was started.
+         * @return utilization from 0 to 1
+         */
+        public double utilization() {
+            return this.utilization;
+        }
+
+        @Override
+        public String toString() {
+            return "StageStats{"
+                + "name='" + name + '\''
+                + ", threads=" + threads
+                + ", capacity=" + capacity
+                + ", queueDepth=" + queueDepth
+                + ", serviceMicros=" + serviceMicros
+                + ", utilization=" + utilization
+                + '}';
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StagedFlow{"
+                + "name='" + this.name + '\''
+                + ", actions=" + this.actions
+                + ", configuration=" + this.configuration
+                + '}';
+    }
+}
@@ -17,21 +17,26 @@
 package com.github.xdcrafts.flower.core.impl.flows;
 
 import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.BatchAction;
 import com.github.xdcrafts.flower.core.Core;
 import com.github.xdcrafts.flower.core.Middleware;
 import com.github.xdcrafts.flower.tools.AsFunction;
 import com.github.xdcrafts.flower.core.Flow;
+import com.github.xdcrafts.flower.core.impl.Futures;
 import com.github.xdcrafts.flower.core.impl.actions.WithMiddlewareActionBase;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 /**
  * Basic and straightforward implementation of Flow.
+ * Batch of contexts moves through flow step by step: batch actions get the whole batch in one call,
+ * any other action is applied to each context of batch.
  */
-public class SyncFlow extends WithMiddlewareActionBase implements Flow {
+public class SyncFlow extends WithMiddlewareActionBase implements Flow, BatchAction {
 
     private final String name;
     private final List<Action> actions;
@@ -69,6 +74,20 @@ public class SyncFlow extends WithMiddlewareActionBase implements Flow {
         return this.flowFunction.apply(context);
     }
 
+    @Override
+    public CompletionStage<Map> actAsync(Map context) {
+        return Futures.applyAsync(this.actions, context);
+    }
+
+    @Override
+    public List<Map> actAll(List<Map> contexts) {
+        List<Map> batch = contexts;
+        for (Action action : this.actions) {
+            batch = action.applyAll(batch);
+        }
+        return batch;
+    }
+
     @Override
     public String toString() {
         return "SyncFlow{"
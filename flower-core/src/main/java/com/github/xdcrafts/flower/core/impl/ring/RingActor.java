@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.ring;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Actor;
+import com.github.xdcrafts.flower.core.impl.Futures;
+import com.github.xdcrafts.flower.core.impl.flows.SyncFlow;
+import com.github.xdcrafts.flower.tools.map.PersistentMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
+
+/**
+ * Actor that runs steps of a sync flow as a pipeline over a preallocated ring of context slots.
+ * Each step is applied by its own thread, slots are handed from producer to steps and from step to step by
+ * advancing sequences, so there are no locks and no queues, and each sequence is written by a single thread.
+ * Every slot owns a context created once by context factory, the context is cleared and filled by initializer
+ * each time slot is reused, so conclusion should extract its value instead of returning context itself.
+ * Steps are actions of SyncFlow (or any of its subclasses) in their order, any other action is a single step.
+ * Middleware of the flow itself is not applied, middleware of its actions is.
+ * Ring 'size' (1024) is rounded up to a power of two, 'waitStrategy' (blocking) is either WaitStrategy or its name.
+ * Failure of a step skips remaining steps of that context and completes its result exceptionally.
+ * Results are completed on the last step's thread, dependent stages should be moved to another executor.
+ * Ring threads are daemon threads that process everything published before shutdown (or close) and then stop.
+ * @param <T> return type
+ */
+@SuppressWarnings("unchecked")
+public class RingActor<T> implements Actor<T>, AutoCloseable {
+
+    public static final String SIZE = "size";
+    public static final String WAIT_STRATEGY = "waitStrategy";
+
+    private static final int DEFAULT_SIZE = 1024;
+    private static final int MAX_SIZE = 1 << 30;
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final String name;
+    private final Action action;
+    private final Action[] steps;
+    private final Function<Map, T> conclusion;
+    private final WaitStrategy waitStrategy;
+    private final boolean blocking;
+    private final Slot<T>[] slots;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final Sequence claimed = new Sequence(0);
+    private final Sequence[] cursors;
+    private final Thread[] threads;
+    private final AtomicLongArray signals;
+    private final AtomicIntegerArray sleeping;
+    private volatile int finished;
+
+    public RingActor(
+        String name,
+        Supplier<Map> contextFactory,
+        Action action,
+        Function<Map, T> conclusion,
+        Map configuration
+    ) {
+        if (contextFactory == null) {
+            throw new IllegalArgumentException("ContextFactory can not be null.");
+        }
+        if (action == null) {
+            throw new IllegalArgumentException("Action can not be null.");
+        }
+        if (conclusion == null) {
+            throw new IllegalArgumentException("Conclusion can not be null.");
+        }
+        final int size = dotGet(configuration, Integer.class, SIZE).orElse(DEFAULT_SIZE);
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Ring size should be from 1 to 2^30: " + size);
+        }
+        this.name = name;
+        this.action = action;
+        this.conclusion = conclusion;
+        this.waitStrategy = waitStrategy(dotGet(configuration, Object.class, WAIT_STRATEGY).orElse(null));
+        this.blocking = this.waitStrategy == WaitStrategy.BLOCKING;
+        final List<Action> actions = action instanceof SyncFlow
+            ? ((SyncFlow) action).actions()
+            : Collections.emptyList();
+        this.steps = actions.isEmpty()
+            ? new Action[] {action}
+            : actions.toArray(new Action[actions.size()]);
+        final int capacity = size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            final Map context = contextFactory.get();
+            if (context == null || context instanceof PersistentMap) {
+                throw new IllegalArgumentException("Ring actor recycles contexts, they should be mutable maps.");
+            }
+            this.slots[i] = new Slot<>(context);
+            this.published.set(i, -1);
+        }
+        this.cursors = new Sequence[this.steps.length];
+        this.threads = new Thread[this.steps.length];
+        this.signals = new AtomicLongArray(this.steps.length);
+        this.sleeping = new AtomicIntegerArray(this.steps.length);
+        for (int i = 0; i < this.steps.length; i++) {
+            final int step = i;
+            this.cursors[i] = new Sequence(-1);
+            this.threads[i] = new Thread(() -> run(step), "flower-ring-" + name + "-" + i);
+            this.threads[i].setDaemon(true);
+        }
+        for (Thread thread : this.threads) {
+            thread.start();
+        }
+    }
+
+    private static WaitStrategy waitStrategy(Object value) {
+        if (value == null) {
+            return WaitStrategy.BLOCKING;
+        }
+        if (value instanceof WaitStrategy) {
+            return (WaitStrategy) value;
+        }
+        if (value instanceof String) {
+            return WaitStrategy.of((String) value);
+        }
+        throw new IllegalArgumentException("Unsupported wait strategy: " + value);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns number of slots in the ring.
+     */
+    public int size() {
+        return this.slots.length;
+    }
+
+    @Override
+    public T apply(Consumer<Map> contextInitializer) {
+        return Futures.join(publish(contextInitializer));
+    }
+
+    @Override
+    public CompletionStage<T> applyAsync(Consumer<Map> contextInitializer) {
+        return publish(contextInitializer);
+    }
+
+    @Override
+    public List<T> applyAll(List<Consumer<Map>> contextInitializers) {
+        final List<CompletableFuture<T>> futures = new ArrayList<>(contextInitializers.size());
+        for (Consumer<Map> contextInitializer : contextInitializers) {
+            futures.add(publish(contextInitializer));
+        }
+        final List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(Futures.join(future));
+        }
+        return results;
+    }
+
+    /**
+     * Stops accepting new contexts, ring threads stop after contexts that are already accepted are processed.
+     */
+    public void shutdown() {
+        long current = this.claimed.get();
+        while (current >= 0 && !this.claimed.compareAndSet(current, current | CLOSED)) {
+            current = this.claimed.get();
+        }
+        for (Thread thread : this.threads) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * The same as shutdown, so containers that close AutoCloseable beans stop ring threads.
+     */
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private long claim() {
+        long current = this.claimed.get();
+        while (current >= 0 && !this.claimed.compareAndSet(current, current + 1)) {
+            current = this.claimed.get();
+        }
+        return current;
+    }
+
+    private CompletableFuture<T> publish(Consumer<Map> contextInitializer) {
+        final long sequence = claim();
+        if (sequence < 0) {
+            return Futures.failed(new RejectedExecutionException("Ring actor '" + this.name + "' is shut down."));
+        }
+        final Sequence gate = this.cursors[this.cursors.length - 1];
+        int attempt = 0;
+        while (sequence - this.slots.length > gate.get()) {
+            this.waitStrategy.idle(attempt++);
+        }
+        final int index = (int) sequence & this.mask;
+        final Slot<T> slot = this.slots[index];
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        slot.result = result;
+        slot.context.clear();
+        slot.working = slot.context;
+        try {
+            if (contextInitializer != null) {
+                contextInitializer.accept(slot.context);
+            }
+        } catch (Throwable t) {
+            slot.failure = t;
+        }
+        this.published.lazySet(index, sequence);
+        signal(0);
+        return result;
+    }
+
+    private void run(int step) {
+        final Action stepAction = this.steps[step];
+        final Sequence cursor = this.cursors[step];
+        final boolean last = step == this.steps.length - 1;
+        long next = cursor.get() + 1;
+        int attempt = 0;
+        while (true) {
+            final long signal = this.signals.get(step);
+            final long available = available(step, next);
+            if (available < next) {
+                if (drained(step, next)) {
+                    break;
+                }
+                if (this.waitStrategy.blocks(attempt)) {
+                    this.sleeping.set(step, 1);
+                    if (this.signals.get(step) == signal) {
+                        LockSupport.park(this);
+                    }
+                    this.sleeping.set(step, 0);
+                } else {
+                    this.waitStrategy.idle(attempt++);
+                }
+                continue;
+            }
+            attempt = 0;
+            for (long sequence = next; sequence <= available; sequence++) {
+                process(this.slots[(int) sequence & this.mask], stepAction, last);
+            }
+            cursor.lazySet(available);
+            signal(step + 1);
+            next = available + 1;
+        }
+        this.finished = step + 1;
+        signal(step + 1);
+    }
+
+    /**
+     * Wakes step that may be parked by blocking wait strategy. Signal counter is advanced after the sequence
+     * the step waits for, so step that read the counter before that either sees it changed or is seen sleeping.
+     */
+    private void signal(int step) {
+        if (!this.blocking || step == this.steps.length) {
+            return;
+        }
+        this.signals.incrementAndGet(step);
+        if (this.sleeping.get(step) == 1) {
+            LockSupport.unpark(this.threads[step]);
+        }
+    }
+
+    private long available(int step, long next) {
+        if (step > 0) {
+            return this.cursors[step - 1].get();
+        }
+        final long bound = next + this.slots.length;
+        long sequence = next;
+        while (sequence < bound && this.published.get((int) sequence & this.mask) == sequence) {
+            sequence++;
+        }
+        return sequence - 1;
+    }
+
+    private boolean drained(int step, long next) {
+        if (step > 0) {
+            return this.finished == step && this.cursors[step - 1].get() < next;
+        }
+        final long current = this.claimed.get();
+        return current < 0 && (current & ~CLOSED) == next;
+    }
+
+    private void process(Slot<T> slot, Action stepAction, boolean last) {
+        if (slot.failure == null) {
+            try {
+                slot.working = stepAction.apply(slot.working);
+            } catch (Throwable t) {
+                slot.failure = t;
+            }
+        }
+        if (!last) {
+            return;
+        }
+        final CompletableFuture<T> result = slot.result;
+        Throwable failure = slot.failure;
+        T value = null;
+        if (failure == null) {
+            try {
+                value = this.conclusion.apply(slot.working);
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+        slot.result = null;
+        slot.working = null;
+        slot.failure = null;
+        if (failure == null) {
+            result.complete(value);
+        } else {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Reusable ring slot, fields are written by one thread at a time and are made visible to the next one
+     * by sequence it advances.
+     * @param <T> return type
+     */
+    private static final class Slot<T> {
+        private final Map context;
+        private Map working;
+        private Throwable failure;
+        private CompletableFuture<T> result;
+
+        private Slot(Map context) {
+            this.context = context;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RingActor{"
+                + "name='" + this.name + '\''
+                + ", action=" + this.action
+                + ", conclusion=" + this.conclusion
+                + ", size=" + this.slots.length
+                + ", waitStrategy=" + this.waitStrategy
+                + '}';
+    }
+}
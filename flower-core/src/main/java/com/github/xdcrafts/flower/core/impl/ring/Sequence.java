@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.ring;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ring sequence padded to its own cache line, so threads advancing neighbour sequences do not contend on it.
+ */
+@SuppressWarnings("unused")
+final class Sequence extends AtomicLong {
+
+    private static final long serialVersionUID = 1L;
+
+    private long p1;
+    private long p2;
+    private long p3;
+    private long p4;
+    private long p5;
+    private long p6;
+    private long p7;
+
+    Sequence(long initialValue) {
+        super(initialValue);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.core.impl.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How ring threads wait for sequences they depend on: producers for free slots, steps for slots published
+ * by producers or processed by previous step.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spin without giving up the processor, lowest latency, but each ring thread occupies a core even when idle.
+     */
+    BUSY_SPIN {
+        @Override
+        void idle(int attempt) {
+            // Nothing
+        }
+    },
+    /**
+     * Spin for a while, then yield to other threads.
+     */
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            if (attempt >= SPINS) {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * Spin for a while, then yield, then park for short periods, idle threads use almost no processor time.
+     */
+    PARK {
+        @Override
+        void idle(int attempt) {
+            if (attempt >= YIELDS) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (attempt >= SPINS) {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * Spin for a while, then yield, then park until the awaited sequence is advanced, idle steps use no processor
+     * time. Producers waiting for free slots are not signalled, they park for short periods as with PARK.
+     */
+    BLOCKING {
+        @Override
+        void idle(int attempt) {
+            PARK.idle(attempt);
+        }
+
+        @Override
+        boolean blocks(int attempt) {
+            return attempt >= YIELDS;
+        }
+    };
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 200;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Called on each failed attempt to get awaited sequence.
+     * @param attempt number of failed attempts in a row
+     */
+    abstract void idle(int attempt);
+
+    /**
+     * Returns true if waiting thread should park until it is signalled instead of calling idle.
+     * @param attempt number of failed attempts in a row
+     * @return true if thread should park until signalled
+     */
+    boolean blocks(int attempt) {
+        return false;
+    }
+
+    /**
+     * Returns wait strategy by name, case insensitive and with '-' in place of '_', e.g. 'busy-spin'.
+     * @param name strategy name
+     * @return wait strategy
+     */
+    public static WaitStrategy of(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
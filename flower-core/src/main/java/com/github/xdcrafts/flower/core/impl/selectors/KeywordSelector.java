@@ -20,20 +20,20 @@ import com.github.xdcrafts.flower.core.Core;
 import com.github.xdcrafts.flower.core.Extension;
 import com.github.xdcrafts.flower.core.Action;
 import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.tools.map.CompiledPath;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
-import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
 import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGetString;
 
 /**
  * Implementation of Selector that selects Action based on value of keyword in context.
+ * Single action lists are prepared on registration, so selection by a single String keyword does not allocate.
  */
 @SuppressWarnings("unchecked")
 public class KeywordSelector extends WithMiddlewareSelectorBase {
@@ -47,19 +47,29 @@ public class KeywordSelector extends WithMiddlewareSelectorBase {
 
     private final String name;
     private final String keyword;
+    private final CompiledPath keywordPath;
     private final boolean required;
     private final Map<String, Extension> extensions;
+    private final Map<String, List<Action>> selections;
 
     public KeywordSelector(String name, String keyword, boolean required) {
         this(name, keyword, required, Collections.emptyList());
     }
 
     public KeywordSelector(String name, String keyword, boolean required, List<Middleware> middleware) {
-        super(middleware);
+        this(name, keyword, required, Collections.emptyMap(), middleware);
+    }
+
+    public KeywordSelector(
+        String name, String keyword, boolean required, Map configuration, List<Middleware> middleware
+    ) {
+        super(configuration, middleware);
         this.name = name;
         this.keyword = keyword;
+        this.keywordPath = CompiledPath.compile(keyword);
         this.required = required;
         this.extensions = new ConcurrentHashMap<>();
+        this.selections = new ConcurrentHashMap<>();
         this.meta.put(Core.ActionMeta.NAME, name);
         this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
         this.meta.put(Core.ActionMeta.MIDDLEWARE, middleware);
@@ -77,18 +87,23 @@ public class KeywordSelector extends WithMiddlewareSelectorBase {
 
     @Override
     public List<Action> selectAction(Map context) {
-        final Object keywordValue = dotGet(context, this.keyword).orElseThrow(
-            () -> new IllegalArgumentException(
+        final Object keywordValue = this.keywordPath.getNullable(context);
+        if (keywordValue == null) {
+            throw new IllegalArgumentException(
                 "Unable to select action, '" + this.keyword + "' key required"
-            ));
-        final Collection<String> keywordValues;
+            );
+        }
         if (keywordValue instanceof String) {
-            keywordValues = Collections.singletonList((String) keywordValue);
+            final List<Action> selected = this.selections.get(keywordValue);
+            return selected == null ? unknownKeywordValue(keywordValue) : selected;
         } else if (keywordValue instanceof Collection) {
-            keywordValues = (Collection<String>) keywordValue;
+            return selectActions(keywordValue, (Collection<String>) keywordValue);
         } else {
             throw new IllegalArgumentException("'" + this.keyword + "' should be a String or Collection<String>.");
         }
+    }
+
+    private List<Action> selectActions(Object keywordValue, Collection<String> keywordValues) {
         if (keywordValues.isEmpty()) {
             if (this.required) {
                 throw new IllegalArgumentException(
@@ -98,22 +113,37 @@ public class KeywordSelector extends WithMiddlewareSelectorBase {
                 return Collections.emptyList();
             }
         }
-        final List<Action> actions = keywordValues
-            .stream()
-            .map(value -> Optional.ofNullable(this.extensions.get(value)))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .collect(Collectors.toList());
-        if (actions.isEmpty()) {
-            if (this.required) {
-                throw new IllegalArgumentException(
-                    "Unable to select action, '" + keywordValue + "' is unknown keyword value."
-                );
-            } else {
-                return Collections.emptyList();
+        List<Action> firstSelected = null;
+        Action[] actions = null;
+        int size = 0;
+        for (String value : keywordValues) {
+            final List<Action> selected = this.selections.get(value);
+            if (selected == null) {
+                continue;
+            }
+            if (firstSelected == null) {
+                firstSelected = selected;
+                continue;
+            }
+            if (actions == null) {
+                actions = new Action[keywordValues.size()];
+                actions[size++] = firstSelected.get(0);
             }
+            actions[size++] = selected.get(0);
+        }
+        if (actions != null) {
+            return Arrays.asList(actions).subList(0, size);
+        }
+        return firstSelected == null ? unknownKeywordValue(keywordValue) : firstSelected;
+    }
+
+    private List<Action> unknownKeywordValue(Object keywordValue) {
+        if (this.required) {
+            throw new IllegalArgumentException(
+                "Unable to select action, '" + keywordValue + "' is unknown keyword value."
+            );
         }
-        return actions;
+        return Collections.emptyList();
     }
 
     @Override
@@ -127,6 +157,8 @@ public class KeywordSelector extends WithMiddlewareSelectorBase {
             throw new IllegalArgumentException("'" + keywordValue + "' already registered!");
         }
         this.extensions.put(keywordValue, extension);
+        this.selections.put(keywordValue, Collections.singletonList(extension));
+        invalidate();
     }
 
     @Override
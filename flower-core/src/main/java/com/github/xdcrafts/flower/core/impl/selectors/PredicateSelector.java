@@ -20,19 +20,26 @@ import com.github.xdcrafts.flower.core.Action;
 import com.github.xdcrafts.flower.core.Core;
 import com.github.xdcrafts.flower.core.Extension;
 import com.github.xdcrafts.flower.core.Middleware;
+import com.github.xdcrafts.flower.tools.map.CompiledPath;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static com.github.xdcrafts.flower.tools.map.MapApi.get;
 
 /**
  * Implementation of Selector that selects Action based on predicates.
+ * Predicates are evaluated in order of extensions priority (greater first), extensions with equal priority
+ * are evaluated in order of registration. Depending on match policy either all matched actions are selected
+ * or only the first one. If selector has a discriminator path then extensions may declare discriminator value,
+ * and predicates of such extensions are evaluated only if context has the same value by discriminator path.
  */
 @SuppressWarnings("unchecked")
 public class PredicateSelector extends WithMiddlewareSelectorBase {
@@ -42,21 +49,98 @@ public class PredicateSelector extends WithMiddlewareSelectorBase {
      */
     public static final class ConfigurationKeys {
         public static final String PREDICATE = "predicate";
+        public static final String PRIORITY = "priority";
+        public static final String DISCRIMINATOR_VALUE = "discriminator-value";
+    }
+
+    /**
+     * Which of matched actions should be selected.
+     */
+    public enum MatchPolicy {
+        ALL, FIRST
+    }
+
+    /**
+     * Registered extension with its predicate and position in evaluation order.
+     */
+    private static final class Candidate {
+        private final Predicate predicate;
+        private final Extension extension;
+        private final int priority;
+        private final long sequence;
+        private final Object discriminatorValue;
+        private final List<Action> selected;
+
+        Candidate(Predicate predicate, Extension extension, int priority, long sequence, Object discriminatorValue) {
+            this.predicate = predicate;
+            this.extension = extension;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.discriminatorValue = discriminatorValue;
+            this.selected = Collections.singletonList(extension);
+        }
+
+        static int compare(Candidate a, Candidate b) {
+            final int byPriority = Integer.compare(b.priority, a.priority);
+            return byPriority != 0 ? byPriority : Long.compare(a.sequence, b.sequence);
+        }
+    }
+
+    /**
+     * Immutable snapshot of candidates ordered for evaluation, replaced on each registration.
+     */
+    private static final class Index {
+        private final Candidate[] common;
+        private final Map<Object, Candidate[]> byValue;
+
+        Index(Candidate[] common, Map<Object, Candidate[]> byValue) {
+            this.common = common;
+            this.byValue = byValue;
+        }
     }
 
     private final String name;
     private final boolean required;
+    private final MatchPolicy matchPolicy;
+    private final String discriminator;
+    private final CompiledPath discriminatorPath;
     private final Map<Predicate, Extension> extensions;
+    private final List<Candidate> candidates;
+    private volatile Index index;
 
     public PredicateSelector(String name, boolean required) {
         this(name, required, Collections.emptyList());
     }
 
     public PredicateSelector(String name, boolean required, List<Middleware> middleware) {
-        super(middleware);
+        this(name, required, MatchPolicy.ALL, null, middleware);
+    }
+
+    public PredicateSelector(
+        String name, boolean required, MatchPolicy matchPolicy, String discriminator, List<Middleware> middleware
+    ) {
+        this(name, required, matchPolicy, discriminator, Collections.emptyMap(), middleware);
+    }
+
+    public PredicateSelector(
+        String name,
+        boolean required,
+        MatchPolicy matchPolicy,
+        String discriminator,
+        Map configuration,
+        List<Middleware> middleware
+    ) {
+        super(configuration, middleware);
         this.name = name;
         this.required = required;
+        this.matchPolicy = matchPolicy == null ? MatchPolicy.ALL : matchPolicy;
+        this.discriminator = discriminator;
+        this.discriminatorPath = discriminator == null || discriminator.isEmpty()
+            ? null
+            : CompiledPath.compile(discriminator);
         this.extensions = new ConcurrentHashMap<>();
+        this.candidates = new ArrayList<>();
+        this.index = new Index(new Candidate[0], Collections.emptyMap());
         this.meta.put(Core.ActionMeta.NAME, name);
         this.meta.put(Core.ActionMeta.TYPE, getClass().getName());
         this.meta.put(Core.ActionMeta.MIDDLEWARE, middleware);
@@ -74,20 +158,36 @@ public class PredicateSelector extends WithMiddlewareSelectorBase {
 
     @Override
     public List<Action> selectAction(Map context) {
-        final List<Action> actions = this.extensions
-            .entrySet()
-            .stream()
-            .filter(e -> e.getKey().test(context))
-            .map(Map.Entry::getValue)
-            .collect(Collectors.toList());
-        if (actions.isEmpty()) {
-            if (this.required) {
-                throw new IllegalArgumentException("Unable to select action, no suitable action found.");
+        final Candidate[] toEvaluate = candidatesFor(context);
+        List<Action> actions = null;
+        Candidate firstMatch = null;
+        for (Candidate candidate : toEvaluate) {
+            if (!candidate.predicate.test(context)) {
+                continue;
+            }
+            if (this.matchPolicy == MatchPolicy.FIRST) {
+                return candidate.selected;
+            }
+            if (firstMatch == null) {
+                firstMatch = candidate;
             } else {
-                return Collections.emptyList();
+                if (actions == null) {
+                    actions = new ArrayList<>();
+                    actions.add(firstMatch.extension);
+                }
+                actions.add(candidate.extension);
             }
         }
-        return actions;
+        if (actions != null) {
+            return actions;
+        }
+        if (firstMatch != null) {
+            return firstMatch.selected;
+        }
+        if (this.required) {
+            throw new IllegalArgumentException("Unable to select action, no suitable action found.");
+        }
+        return Collections.emptyList();
     }
 
     @Override
@@ -98,17 +198,72 @@ public class PredicateSelector extends WithMiddlewareSelectorBase {
             .orElseThrow(() -> new IllegalArgumentException(
                 extension + ": '" + ConfigurationKeys.PREDICATE + "' key required."
             ));
-        if (this.extensions.containsKey(predicate)) {
-            throw new IllegalArgumentException(predicate + " already registered!");
+        final int priority = get(configuration, Object.class, ConfigurationKeys.PRIORITY)
+            .map(p -> p instanceof Number ? ((Number) p).intValue() : Integer.parseInt(p.toString().trim()))
+            .orElse(0);
+        final Object discriminatorValue = configuration.get(ConfigurationKeys.DISCRIMINATOR_VALUE);
+        if (discriminatorValue != null && this.discriminatorPath == null) {
+            throw new IllegalArgumentException(
+                extension + ": '" + ConfigurationKeys.DISCRIMINATOR_VALUE + "' requires selector with discriminator."
+            );
+        }
+        synchronized (this.candidates) {
+            if (this.extensions.containsKey(predicate)) {
+                throw new IllegalArgumentException(predicate + " already registered!");
+            }
+            this.extensions.put(predicate, extension);
+            this.candidates.add(
+                new Candidate(predicate, extension, priority, this.candidates.size(), discriminatorValue)
+            );
+            reindex();
+            invalidate();
+        }
+    }
+
+    private Candidate[] candidatesFor(Map context) {
+        final Index current = this.index;
+        if (this.discriminatorPath == null) {
+            return current.common;
         }
-        this.extensions.put(predicate, extension);
+        final Object value = this.discriminatorPath.getNullable(context);
+        final Candidate[] byValue = value == null ? null : current.byValue.get(value);
+        return byValue == null ? current.common : byValue;
+    }
+
+    /**
+     * Rebuilds candidates arrays: one with extensions that have no discriminator value
+     * and one per discriminator value that also includes extensions without it.
+     */
+    private void reindex() {
+        final Candidate[] sorted = this.candidates.toArray(new Candidate[this.candidates.size()]);
+        Arrays.sort(sorted, Candidate::compare);
+        final List<Candidate> newCommon = new ArrayList<>();
+        final Map<Object, List<Candidate>> byValue = new HashMap<>();
+        for (Candidate candidate : sorted) {
+            if (candidate.discriminatorValue == null) {
+                newCommon.add(candidate);
+            } else {
+                byValue.computeIfAbsent(candidate.discriminatorValue, v -> new ArrayList<>());
+            }
+        }
+        for (Candidate candidate : sorted) {
+            for (Map.Entry<Object, List<Candidate>> entry : byValue.entrySet()) {
+                if (candidate.discriminatorValue == null || candidate.discriminatorValue.equals(entry.getKey())) {
+                    entry.getValue().add(candidate);
+                }
+            }
+        }
+        final Map<Object, Candidate[]> newIndexed = new HashMap<>();
+        byValue.forEach((value, list) -> newIndexed.put(value, list.toArray(new Candidate[list.size()])));
+        this.index = new Index(newCommon.toArray(new Candidate[newCommon.size()]), newIndexed);
     }
 
     @Override
     public String toString() {
         return "PredicateSelector{"
                 + "name='" + this.name + '\''
-                + ", extensions=" + extensions
+                + ", matchPolicy=" + this.matchPolicy
+                + ", discriminator=" + this.discriminator
                 + ", extensions=" + extensions
                 + '}';
     }
@@ -16,29 +16,168 @@
 
 package com.github.xdcrafts.flower.core.impl.selectors;
 
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.BatchAction;
 import com.github.xdcrafts.flower.core.Middleware;
 import com.github.xdcrafts.flower.core.Selector;
+import com.github.xdcrafts.flower.core.impl.Futures;
 import com.github.xdcrafts.flower.core.impl.actions.WithMiddlewareActionBase;
+import com.github.xdcrafts.flower.core.impl.flows.ParallelFlow;
+import com.github.xdcrafts.flower.tools.BoundedCache;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGetNullable;
+
 /**
  * Abstract class as a base for any Selector implementation.
+ * Pipelines composed of selected actions are memoized per selection, so lists returned by selectAction
+ * must not be modified afterwards. Cache size is set by 'flower.selector.pipeline-cache.size' system property
+ * (64 by default, 0 disables caching).
+ * Several selected actions are applied one after another with SEQUENTIAL execution policy, PARALLEL policy applies
+ * them as ParallelFlow configured with the same 'executorService' and 'mergeStrategy' configuration keys.
+ * Batch of contexts is split into groups by selected actions and each group is passed through them as a batch.
  */
-public abstract class WithMiddlewareSelectorBase extends WithMiddlewareActionBase implements Selector {
+public abstract class WithMiddlewareSelectorBase extends WithMiddlewareActionBase implements Selector, BatchAction {
+
+    /**
+     * System property with maximum number of cached pipelines per selector.
+     */
+    public static final String PIPELINE_CACHE_SIZE_PROPERTY = "flower.selector.pipeline-cache.size";
+    private static final int DEFAULT_PIPELINE_CACHE_SIZE = 64;
+
+    public static final String EXECUTION_POLICY = "executionPolicy";
+    public static final String EXECUTOR_SERVICE = ParallelFlow.EXECUTOR_SERVICE;
+    public static final String MERGE_STRATEGY = ParallelFlow.MERGE_STRATEGY;
+
+    /**
+     * Defines how several selected actions are applied.
+     */
+    public enum ExecutionPolicy {
+        SEQUENTIAL, PARALLEL
+    }
+
+    private final BoundedCache<List<Action>, Function<Map, Map>> pipelines = new BoundedCache<>(
+        Integer.getInteger(PIPELINE_CACHE_SIZE_PROPERTY, DEFAULT_PIPELINE_CACHE_SIZE)
+    );
+
+    private final Map configuration;
+    private final ExecutionPolicy executionPolicy;
 
     public WithMiddlewareSelectorBase(List<Middleware> middleware) {
+        this(Collections.emptyMap(), middleware);
+    }
+
+    public WithMiddlewareSelectorBase(Map configuration, List<Middleware> middleware) {
         super(middleware);
+        this.configuration = configuration == null ? Collections.emptyMap() : configuration;
+        this.executionPolicy = executionPolicy(dotGetNullable(this.configuration, EXECUTION_POLICY));
+    }
+
+    private static ExecutionPolicy executionPolicy(Object value) {
+        if (value == null) {
+            return ExecutionPolicy.SEQUENTIAL;
+        }
+        if (value instanceof ExecutionPolicy) {
+            return (ExecutionPolicy) value;
+        }
+        if (value instanceof String) {
+            return ExecutionPolicy.valueOf(((String) value).toUpperCase());
+        }
+        throw new IllegalArgumentException("Unsupported execution policy: " + value);
+    }
+
+    public ExecutionPolicy getExecutionPolicy() {
+        return this.executionPolicy;
     }
 
     @Override
     public Map act(Map ctx) {
-        return selectAction(ctx)
-            .stream()
-            .map(a -> (Function<Map, Map>) a)
-            .reduce(Function.identity(), Function::andThen)
-            .apply(ctx);
+        final List<Action> selected = selectAction(ctx);
+        switch (selected.size()) {
+            case 0:
+                return ctx;
+            case 1:
+                return selected.get(0).apply(ctx);
+            default:
+                return this.pipelines.computeIfAbsent(selected, this::compose).apply(ctx);
+        }
+    }
+
+    @Override
+    public CompletionStage<Map> actAsync(Map ctx) {
+        final List<Action> selected;
+        try {
+            selected = selectAction(ctx);
+        } catch (RuntimeException e) {
+            return Futures.failed(e);
+        }
+        if (this.executionPolicy == ExecutionPolicy.PARALLEL && selected.size() > 1) {
+            return ((Action) this.pipelines.computeIfAbsent(selected, this::compose)).applyAsync(ctx);
+        }
+        return Futures.applyAsync(selected, ctx);
+    }
+
+    @Override
+    public List<Map> actAll(List<Map> contexts) {
+        final Map<List<Action>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < contexts.size(); i++) {
+            groups.computeIfAbsent(selectAction(contexts.get(i)), selected -> new ArrayList<>()).add(i);
+        }
+        final Map[] results = new Map[contexts.size()];
+        for (Map.Entry<List<Action>, List<Integer>> group : groups.entrySet()) {
+            final List<Action> selected = group.getKey();
+            final List<Integer> indices = group.getValue();
+            List<Map> batch = new ArrayList<>(indices.size());
+            for (Integer index : indices) {
+                batch.add(contexts.get(index));
+            }
+            if (this.executionPolicy == ExecutionPolicy.PARALLEL && selected.size() > 1) {
+                batch = ((Action) this.pipelines.computeIfAbsent(selected, this::compose)).applyAll(batch);
+            } else {
+                for (Action action : selected) {
+                    batch = action.applyAll(batch);
+                }
+            }
+            for (int i = 0; i < indices.size(); i++) {
+                results[indices.get(i)] = batch.get(i);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Returns statistics of composed pipelines cache.
+     */
+    public BoundedCache.Stats pipelineCacheStats() {
+        return this.pipelines.stats();
+    }
+
+    /**
+     * Drops composed pipelines, should be called when set of registered extensions changes.
+     */
+    protected void invalidate() {
+        this.pipelines.clear();
+    }
+
+    private Function<Map, Map> compose(List<Action> selected) {
+        if (this.executionPolicy == ExecutionPolicy.PARALLEL) {
+            return new ParallelFlow(getName(), selected, this.configuration);
+        }
+        final Action[] chain = selected.toArray(new Action[selected.size()]);
+        return ctx -> {
+            Map result = ctx;
+            for (Action action : chain) {
+                result = action.apply(result);
+            }
+            return result;
+        };
     }
 }
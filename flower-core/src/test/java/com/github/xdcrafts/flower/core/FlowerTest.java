@@ -16,23 +16,54 @@
 
 package com.github.xdcrafts.flower.core;
 
+import com.github.xdcrafts.flower.core.impl.CancellationToken;
 import com.github.xdcrafts.flower.core.impl.DefaultActor;
 import com.github.xdcrafts.flower.core.impl.DefaultFeature;
+import com.github.xdcrafts.flower.core.impl.Futures;
 import com.github.xdcrafts.flower.core.impl.actions.AwaitAction;
+import com.github.xdcrafts.flower.core.impl.actions.BatchingAction;
 import com.github.xdcrafts.flower.core.impl.actions.DefaultAction;
+import com.github.xdcrafts.flower.core.impl.actions.DefaultDataFunctionExtractor;
 import com.github.xdcrafts.flower.core.impl.flows.AsyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.DagSyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.ForEachFlow;
+import com.github.xdcrafts.flower.core.impl.flows.FusedSyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.MergeStrategy;
+import com.github.xdcrafts.flower.core.impl.flows.ParallelFlow;
+import com.github.xdcrafts.flower.core.impl.flows.StagedFlow;
+import com.github.xdcrafts.flower.core.impl.ring.RingActor;
+import com.github.xdcrafts.flower.core.impl.ring.WaitStrategy;
 import com.github.xdcrafts.flower.core.impl.selectors.KeywordSelector;
+import com.github.xdcrafts.flower.core.impl.selectors.PredicateSelector;
 import com.github.xdcrafts.flower.core.impl.extensions.DefaultExtension;
 import com.github.xdcrafts.flower.core.impl.flows.SyncFlow;
+import com.github.xdcrafts.flower.tools.Histogram;
+import com.github.xdcrafts.flower.tools.map.PersistentMap;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.github.xdcrafts.flower.tools.map.MapApi.get;
 import static com.github.xdcrafts.flower.tools.map.MapApi.getUnsafe;
@@ -40,7 +71,9 @@ import static com.github.xdcrafts.flower.tools.map.MapApi.assoc;
 import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Simple tests.
@@ -149,5 +182,913 @@ public class FlowerTest {
         );
         assertTrue(getUnsafe(firstResult, Boolean.class, "data", "first"));
         assertTrue(getUnsafe(secondResult, Boolean.class, "data", "second"));
+        final Map bothResult = keywordSelector.apply(
+            with(new HashMap()).assoc("data", "selectAction", Arrays.asList("first", "unknown", "second")).value()
+        );
+        assertTrue(getUnsafe(bothResult, Boolean.class, "data", "first"));
+        assertTrue(getUnsafe(bothResult, Boolean.class, "data", "second"));
+        keywordSelector.apply(
+            with(new HashMap()).assoc("data", "selectAction", Arrays.asList("first", "second")).value()
+        );
+        assertEquals(1, ((KeywordSelector) keywordSelector).pipelineCacheStats().hits());
+        assertEquals(
+            Collections.singletonList(secondExtension),
+            keywordSelector.selectAction(with(new HashMap()).assoc("data", "selectAction", "second").value())
+        );
+    }
+
+    @Test
+    public void fusedFlowTest() {
+        final Middleware counterMiddleware = Middleware.middleware("counterMiddleware", (map, function) -> ctx ->
+            function.apply(assoc(ctx, "counter", getUnsafe(ctx, Integer.class, "counter") * 10))
+        );
+        final Action increment = Action.action("increment", ctx ->
+            assoc(ctx, "counter", getUnsafe(ctx, Integer.class, "counter") + 1)
+        );
+        final Action withMiddleware = new DefaultAction(
+            "withMiddleware", increment, Collections.singletonList(counterMiddleware)
+        );
+        final KeywordSelector selector = new KeywordSelector("selector", "keyword", true);
+        selector.register(new DefaultExtension(
+            "extension",
+            increment,
+            with(new HashMap()).assoc(KeywordSelector.ConfigurationKeys.KEYWORD_VALUE, "inc").value()
+        ));
+        final Flow nested = new SyncFlow("nested", Arrays.asList(increment, selector, increment));
+        final List<Action> actions = Arrays.asList(increment, nested, withMiddleware, selector);
+        final SyncFlow syncFlow = new SyncFlow("sync", actions);
+        final FusedSyncFlow fusedFlow = new FusedSyncFlow("fused", actions);
+        assertEquals(6, fusedFlow.size());
+        final Map syncResult = syncFlow.apply(
+            with(new HashMap()).assoc("counter", 0).assoc("keyword", "inc").value()
+        );
+        final Map fusedResult = fusedFlow.apply(
+            with(new HashMap()).assoc("counter", 0).assoc("keyword", "inc").value()
+        );
+        assertEquals(syncResult, fusedResult);
+        assertEquals(Integer.valueOf(42), getUnsafe(fusedResult, Integer.class, "counter"));
+    }
+
+    @Test
+    public void predicateSelectorTest() {
+        final PredicateSelector selector = new PredicateSelector(
+            "selector", false, PredicateSelector.MatchPolicy.FIRST, "type", Collections.emptyList()
+        );
+        final Action low = Action.action("low", ctx -> ctx);
+        final Action high = Action.action("high", ctx -> ctx);
+        final Action sms = Action.action("sms", ctx -> ctx);
+        final Predicate<Map> always = ctx -> true;
+        selector.register(new DefaultExtension("low", low, with(new HashMap())
+            .assoc(PredicateSelector.ConfigurationKeys.PREDICATE, always)
+            .value()
+        ));
+        selector.register(new DefaultExtension("high", high, with(new HashMap())
+            .assoc(PredicateSelector.ConfigurationKeys.PREDICATE, (Predicate<Map>) ctx -> true)
+            .assoc(PredicateSelector.ConfigurationKeys.PRIORITY, "10")
+            .value()
+        ));
+        selector.register(new DefaultExtension("sms", sms, with(new HashMap())
+            .assoc(PredicateSelector.ConfigurationKeys.PREDICATE, (Predicate<Map>) ctx -> true)
+            .assoc(PredicateSelector.ConfigurationKeys.PRIORITY, 20)
+            .assoc(PredicateSelector.ConfigurationKeys.DISCRIMINATOR_VALUE, "sms")
+            .value()
+        ));
+        final Map email = with(new HashMap()).assoc("type", "email").value();
+        final Map smsContext = with(new HashMap()).assoc("type", "sms").value();
+        assertEquals("high", selector.selectAction(email).get(0).getName());
+        assertEquals(1, selector.selectAction(email).size());
+        assertEquals("sms", selector.selectAction(smsContext).get(0).getName());
+        assertEquals("high", selector.selectAction(new HashMap()).get(0).getName());
+        final PredicateSelector allSelector = new PredicateSelector("all", true);
+        allSelector.register(new DefaultExtension("low", low, with(new HashMap())
+            .assoc(PredicateSelector.ConfigurationKeys.PREDICATE, always)
+            .value()
+        ));
+        allSelector.register(new DefaultExtension("high", high, with(new HashMap())
+            .assoc(PredicateSelector.ConfigurationKeys.PREDICATE, (Predicate<Map>) ctx -> true)
+            .assoc(PredicateSelector.ConfigurationKeys.PRIORITY, 1)
+            .value()
+        ));
+        assertEquals(Arrays.asList(high, low), allSelector.selectAction(email).stream()
+            .map(a -> ((Extension) a).action())
+            .collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void applyAsyncTest() throws Exception {
+        final Action first = Action.action("first", ctx -> assoc(ctx, "data", "first", true));
+        final Action slow = Action.action("slow", ctx -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return assoc(ctx, "data", "slow", true);
+        });
+        final Flow asyncFlow = new AsyncFlow(
+            "asyncFlow",
+            Arrays.asList(first, slow),
+            with(new HashMap<String, Object>())
+                .assoc(AsyncFlow.EXECUTOR_SERVICE, Executors.newSingleThreadExecutor())
+                .value()
+        );
+        final Actor<Boolean> actor = new DefaultActor<>(
+            ConcurrentHashMap::new,
+            new SyncFlow("flow", Arrays.asList(asyncFlow, new AwaitAction("await", 1000))),
+            ctx -> getUnsafe(ctx, Boolean.class, "data", "first") && getUnsafe(ctx, Boolean.class, "data", "slow")
+        );
+        assertTrue(actor.applyAsync(ctx -> { }).toCompletableFuture().get(1, TimeUnit.SECONDS));
+        final Map expecting = new ConcurrentHashMap();
+        assoc(expecting, "meta", "flow", "expectation", new CompletableFuture<Map>());
+        try {
+            new AwaitAction("await", 10).applyAsync(expecting).toCompletableFuture().get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        final CompletableFuture<Map> pending = new CompletableFuture<>();
+        final Map chained = assoc(new ConcurrentHashMap(), "meta", "flow", "expectation", pending);
+        final CompletableFuture<Map> continued = asyncFlow.applyAsync(chained).toCompletableFuture();
+        assertTrue(Core.FlowMeta.EXPECTATION_PATH.getNullable(chained) == pending);
+        pending.complete(chained);
+        final Map continuedResult = continued.get(1, TimeUnit.SECONDS);
+        assertTrue(getUnsafe(continuedResult, Boolean.class, "data", "slow"));
+        assertFalse(Core.FlowMeta.EXPECTATION_PATH.contains(continuedResult));
+    }
+
+    @Test
+    public void virtualThreadsTest() throws Exception {
+        final Action first = Action.action("first", ctx -> assoc(ctx, "first", Thread.currentThread()));
+        final Action second = Action.action("second", ctx -> assoc(ctx, "second", Thread.currentThread()));
+        final AsyncFlow flow = new AsyncFlow(
+            "virtualFlow",
+            Arrays.asList(first, second),
+            with(new HashMap<String, Object>()).assoc(AsyncFlow.VIRTUAL_THREADS, true).value()
+        );
+        final Map result = flow.applyAsync(new ConcurrentHashMap()).toCompletableFuture().get(1, TimeUnit.SECONDS);
+        assertTrue(result.get("first") != Thread.currentThread());
+        assertTrue(result.get("first") == result.get("second"));
+        final Map awaited = new AwaitAction("await", 1000).apply(flow.apply(new ConcurrentHashMap()));
+        assertTrue(awaited.get("first") == awaited.get("second"));
+    }
+
+    @Test
+    public void fusedAsyncFlowTest() throws Exception {
+        final Action first = Action.action("first", ctx -> assoc(ctx, "first", Thread.currentThread()));
+        final Action second = Action.action("second", ctx -> assoc(ctx, "second", Thread.currentThread()));
+        final Action boundary = new DefaultAction(
+            "boundary",
+            ctx -> assoc(ctx, "boundary", true),
+            Collections.emptyList(),
+            Collections.singletonMap(Core.ActionMeta.ASYNC_BOUNDARY, true)
+        );
+        final AsyncFlow flow = new AsyncFlow(
+            "fusedFlow",
+            Arrays.asList(first, second, boundary),
+            with(new HashMap<String, Object>())
+                .assoc(AsyncFlow.EXECUTOR_SERVICE, Executors.newFixedThreadPool(4))
+                .assoc(AsyncFlow.FUSED, true)
+                .value()
+        );
+        final Map result = new AwaitAction("await", 1000).apply(flow.apply(new ConcurrentHashMap()));
+        assertTrue(result.get("first") == result.get("second"));
+        assertTrue(getUnsafe(result, Boolean.class, "boundary"));
+    }
+
+    /**
+     * Data functions for extractor test.
+     */
+    public static final class DataFunctions {
+        public static Map mark(Map context) {
+            return assoc(context, "static", true);
+        }
+
+        public HashMap markVirtual(HashMap context) {
+            return (HashMap) assoc(context, "virtual", true);
+        }
+
+        public Map failing(Map context) throws Exception {
+            throw new Exception("checked");
+        }
+    }
+
+    @Test
+    public void dataFunctionExtractorTest() {
+        final DataFunctionExtractor extractor = new DefaultDataFunctionExtractor(Collections.emptyList());
+        final Map context = extractor
+            .apply(DataFunctions.class, "mark")
+            .andThen(extractor.apply(new DataFunctions(), "markVirtual"))
+            .apply(new HashMap());
+        assertTrue(getUnsafe(context, Boolean.class, "static"));
+        assertTrue(getUnsafe(context, Boolean.class, "virtual"));
+        try {
+            extractor.apply(new DataFunctions(), "failing").apply(new HashMap());
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("checked", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void immutableContextTest() {
+        final List<Map> snapshots = Collections.synchronizedList(new ArrayList<>());
+        final Action first = Action.action("first", ctx -> {
+            snapshots.add(ctx);
+            return assoc(ctx, "data", "first", true);
+        });
+        final Action second = Action.action("second", ctx -> {
+            snapshots.add(ctx);
+            return assoc(ctx, "data", "second", true);
+        });
+        final Flow flow = new SyncFlow(
+            "immutableFlow",
+            Arrays.asList(
+                first,
+                new AsyncFlow(
+                    "asyncFlow",
+                    Collections.singletonList(second),
+                    with(new HashMap<String, Object>())
+                        .assoc(AsyncFlow.EXECUTOR_SERVICE, Executors.newSingleThreadExecutor())
+                        .value()
+                ),
+                new AwaitAction("await", 1000)
+            )
+        );
+        final Actor<Map> actor = new DefaultActor<>(PersistentMap::empty, flow, ctx -> ctx);
+        final Map result = actor.apply(ctx -> assoc(ctx, "input", "value", 1));
+        assertTrue(result instanceof PersistentMap);
+        assertEquals(1, getUnsafe(result, "input", "value"));
+        assertTrue(getUnsafe(result, Boolean.class, "data", "first"));
+        assertTrue(getUnsafe(result, Boolean.class, "data", "second"));
+        assertFalse(get(snapshots.get(0), "data").isPresent());
+        assertFalse(get(snapshots.get(1), "data", "second").isPresent());
+        assertFalse(get(result, "meta", "flow", "expectation").isPresent());
+    }
+
+    @Test
+    public void parallelFlowTest() throws Exception {
+        final List<Action> actions = Arrays.asList(
+            Action.action("a", ctx -> assoc(ctx, "data", "a", Thread.currentThread().getName())),
+            Action.action("b", ctx -> assoc(ctx, "data", "b", true)),
+            Action.action("c", ctx -> assoc(assoc(ctx, "data", "c", true), "status", "c"))
+        );
+        final Map<String, Object> configuration = with(new HashMap<String, Object>())
+            .assoc(ParallelFlow.EXECUTOR_SERVICE, Executors.newFixedThreadPool(2))
+            .value();
+        final Flow deepMerge = new ParallelFlow("deepMerge", actions, configuration);
+        final Map result = deepMerge.apply(with(new HashMap()).assoc("data", "input", 1).value());
+        assertEquals(1, getUnsafe(result, "data", "input"));
+        assertTrue(getUnsafe(result, Boolean.class, "data", "b"));
+        assertTrue(getUnsafe(result, Boolean.class, "data", "c"));
+        assertEquals("c", getUnsafe(result, "status"));
+        assertTrue(!Thread.currentThread().getName().equals(getUnsafe(result, "data", "a")));
+        final Map persistentResult = deepMerge.applyAsync(PersistentMap.empty()).toCompletableFuture().get();
+        assertTrue(persistentResult instanceof PersistentMap);
+        assertEquals(3, getUnsafe(persistentResult, Map.class, "data").size());
+        final Map nested = new HashMap();
+        nested.put("input", 1);
+        nested.put("missing", null);
+        final Map concurrent = new ConcurrentHashMap();
+        concurrent.put("data", nested);
+        concurrent.put("fixed", Collections.singletonMap("key", "value"));
+        final Map forked = ParallelFlow.fork(concurrent);
+        assertTrue(forked instanceof ConcurrentHashMap);
+        assertTrue(forked.get("data") instanceof HashMap);
+        assertTrue(getUnsafe(forked, Map.class, "data").containsKey("missing"));
+        assertEquals(HashMap.class, forked.get("fixed").getClass());
+        final Map concurrentResult = deepMerge.apply(concurrent);
+        assertTrue(concurrentResult instanceof ConcurrentHashMap);
+        assertTrue(getUnsafe(concurrentResult, Boolean.class, "data", "c"));
+        assertTrue(getUnsafe(concurrentResult, Map.class, "data").containsKey("missing"));
+        final Flow disjoint = new ParallelFlow(
+            "disjoint",
+            actions,
+            with(new HashMap<String, Object>(configuration))
+                .assoc(ParallelFlow.MERGE_STRATEGY, MergeStrategy.KEY_DISJOINT_UNION)
+                .value()
+        );
+        try {
+            disjoint.apply(new HashMap());
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("data"));
+        }
+        final Flow lastWriterWins = new ParallelFlow(
+            "lastWriterWins",
+            actions,
+            with(new HashMap<String, Object>(configuration))
+                .assoc(ParallelFlow.MERGE_STRATEGY, "last-writer-wins")
+                .value()
+        );
+        final Map lastResult = lastWriterWins.apply(new HashMap());
+        assertEquals(1, getUnsafe(lastResult, Map.class, "data").size());
+        assertTrue(getUnsafe(lastResult, Boolean.class, "data", "c"));
+    }
+
+    private static Action declared(String name, String reads, String writes, Function<Map, Map> body) {
+        return new DefaultAction(
+            name,
+            body,
+            Collections.emptyList(),
+            with(new HashMap<String, Object>())
+                .assoc(Core.ActionMeta.READS, reads)
+                .assoc(Core.ActionMeta.WRITES, writes)
+                .value()
+        );
+    }
+
+    @Test
+    public void dagFlowTest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Function<String, Function<Map, Map>> lookup = key -> ctx -> {
+            latch.countDown();
+            try {
+                latch.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return assoc(ctx, "data", key, key + getUnsafe(ctx, "request", "id"));
+        };
+        final List<Action> actions = Arrays.asList(
+            declared("a", "request", "data.a", lookup.apply("a")),
+            declared("b", "request", "data.b", lookup.apply("b")),
+            declared("c", "data.a,data.b", "summary", ctx -> assoc(
+                ctx, "summary", getUnsafe(ctx, "data", "a") + "-" + getUnsafe(ctx, "data", "b")
+            )),
+            Action.action("d", ctx -> assoc(ctx, "done", true))
+        );
+        final DagSyncFlow dagFlow = DagSyncFlow.compile(
+            new SyncFlow("flow", actions),
+            with(new HashMap<String, Object>())
+                .assoc(DagSyncFlow.EXECUTOR_SERVICE, Executors.newSingleThreadExecutor())
+                .value()
+        );
+        assertEquals(3, dagFlow.size());
+        final long start = System.nanoTime();
+        final Map result = dagFlow.apply(with(new HashMap()).assoc("request", "id", 1).value());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 900);
+        assertEquals("a1-b1", getUnsafe(result, "summary"));
+        final Map sequential = new SyncFlow("flow", actions)
+            .apply(with(new HashMap()).assoc("request", "id", 1).value());
+        assertEquals(sequential, result);
+        assertEquals(
+            sequential,
+            dagFlow.applyAsync(with(new HashMap()).assoc("request", "id", 1).value()).toCompletableFuture().get()
+        );
+        final DagSyncFlow undeclared = new DagSyncFlow(
+            "undeclared", Arrays.asList(actions.get(3), actions.get(3)), new HashMap()
+        );
+        assertEquals(2, undeclared.size());
+        final DagSyncFlow lone = new DagSyncFlow("lone", Arrays.asList(
+            declared("e", "request", "data.e", ctx -> assoc(assoc(ctx, "data", "e", true), "leaked", true)),
+            declared("f", "data.e", "data.f", ctx -> assoc(assoc(ctx, "data", "f", true), "leaked", true))
+        ), new HashMap());
+        assertEquals(2, lone.size());
+        final Map loneResult = lone.apply(with(new HashMap()).assoc("request", "id", 1).value());
+        assertTrue(getUnsafe(loneResult, Boolean.class, "data", "f"));
+        assertFalse(loneResult.containsKey("leaked"));
+        final Map loneAsyncResult = lone.applyAsync(with(new HashMap()).assoc("request", "id", 1).value())
+            .toCompletableFuture()
+            .get();
+        assertTrue(getUnsafe(loneAsyncResult, Boolean.class, "data", "e"));
+        assertFalse(loneAsyncResult.containsKey("leaked"));
+    }
+
+    @Test
+    public void parallelSelectorTest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Function<String, Function<Map, Map>> notify = channel -> ctx -> {
+            latch.countDown();
+            try {
+                assertTrue(latch.await(1, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return assoc(ctx, "notifications", channel, true);
+        };
+        final KeywordSelector selector = new KeywordSelector(
+            "channels",
+            "channels",
+            true,
+            with(new HashMap<String, Object>())
+                .assoc(KeywordSelector.EXECUTION_POLICY, "parallel")
+                .assoc(KeywordSelector.EXECUTOR_SERVICE, Executors.newSingleThreadExecutor())
+                .value(),
+            Collections.emptyList()
+        );
+        assertEquals(KeywordSelector.ExecutionPolicy.PARALLEL, selector.getExecutionPolicy());
+        for (String channel : Arrays.asList("sms", "email")) {
+            selector.register(new DefaultExtension(
+                channel,
+                new DefaultAction(channel, notify.apply(channel)),
+                with(new HashMap()).assoc(KeywordSelector.ConfigurationKeys.KEYWORD_VALUE, channel).value()
+            ));
+        }
+        final Map result = selector.apply(
+            with(new HashMap()).assoc("channels", Arrays.asList("sms", "email")).value()
+        );
+        assertTrue(getUnsafe(result, Boolean.class, "notifications", "sms"));
+        assertTrue(getUnsafe(result, Boolean.class, "notifications", "email"));
+        final Map asyncResult = selector.applyAsync(
+            with(new HashMap()).assoc("channels", Arrays.asList("sms", "email")).value()
+        ).toCompletableFuture().get();
+        assertEquals(result, asyncResult);
+        final KeywordSelector forked = new KeywordSelector(
+            "forked",
+            "steps",
+            true,
+            with(new HashMap<String, Object>())
+                .assoc(KeywordSelector.EXECUTION_POLICY, "parallel")
+                .assoc(KeywordSelector.MERGE_STRATEGY, "key-disjoint-union")
+                .value(),
+            Collections.emptyList()
+        );
+        forked.register(new DefaultExtension(
+            "x",
+            new DefaultAction("x", ctx -> assoc(ctx, "x", true)),
+            with(new HashMap()).assoc(KeywordSelector.ConfigurationKeys.KEYWORD_VALUE, "x").value()
+        ));
+        forked.register(new DefaultExtension(
+            "y",
+            new DefaultAction("y", ctx -> assoc(ctx, "seenX", ctx.containsKey("x"))),
+            with(new HashMap()).assoc(KeywordSelector.ConfigurationKeys.KEYWORD_VALUE, "y").value()
+        ));
+        final Map syncResult = new SyncFlow("sync", Collections.singletonList(forked)).apply(
+            with(new HashMap()).assoc("steps", Arrays.asList("x", "y")).value()
+        );
+        final Map fusedResult = new FusedSyncFlow("fused", Collections.singletonList(forked)).apply(
+            with(new HashMap()).assoc("steps", Arrays.asList("x", "y")).value()
+        );
+        assertFalse(getUnsafe(syncResult, Boolean.class, "seenX"));
+        assertEquals(syncResult, fusedResult);
+    }
+
+    @Test
+    public void forEachFlowTest() throws Exception {
+        final List<Integer> lines = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            lines.add(i);
+        }
+        final Action price = Action.action("price", ctx -> assoc(
+            ctx, "price", getUnsafe(ctx, Integer.class, "line") * getUnsafe(ctx, Integer.class, "order", "rate")
+        ));
+        final ForEachFlow forEach = new ForEachFlow("forEach", price, with(new HashMap<String, Object>())
+            .assoc(ForEachFlow.ITEMS, "order.lines")
+            .assoc(ForEachFlow.ITEM, "line")
+            .assoc(ForEachFlow.RESULT, "order.prices")
+            .assoc(ForEachFlow.RESULT_ITEM, "price")
+            .assoc(ForEachFlow.PARALLELISM, 4)
+            .value()
+        );
+        final Map result = forEach.apply(
+            with(new HashMap()).assoc("order", "lines", lines).assoc("order", "rate", 2).value()
+        );
+        final List prices = getUnsafe(result, List.class, "order", "prices");
+        assertEquals(10000, prices.size());
+        for (int i = 0; i < prices.size(); i++) {
+            assertEquals(i * 2, prices.get(i));
+        }
+        assertFalse(result.containsKey("line"));
+        final Map persistent = forEach.applyAsync(
+            PersistentMap.empty().assoc("order", with(new HashMap()).assoc("lines", lines).assoc("rate", 3).value())
+        ).toCompletableFuture().get();
+        assertEquals(29997, ((List) getUnsafe(persistent, List.class, "order", "prices")).get(9999));
+        final ForEachFlow unordered = new ForEachFlow("unordered", price, with(new HashMap<String, Object>())
+            .assoc(ForEachFlow.ITEMS, "order.lines")
+            .assoc(ForEachFlow.ITEM, "line")
+            .assoc(ForEachFlow.RESULT, "order.prices")
+            .assoc(ForEachFlow.RESULT_ITEM, "price")
+            .assoc(ForEachFlow.PARALLELISM, 4)
+            .assoc(ForEachFlow.THRESHOLD, 100)
+            .assoc(ForEachFlow.ORDERED, false)
+            .value()
+        );
+        final List<Integer> unorderedPrices = new ArrayList<>(getUnsafe(unordered.apply(
+            with(new HashMap()).assoc("order", "lines", lines).assoc("order", "rate", 2).value()
+        ), List.class, "order", "prices"));
+        Collections.sort(unorderedPrices);
+        assertEquals(prices, unorderedPrices);
+        final ForEachFlow sequential = new ForEachFlow("sequential", price, with(new HashMap<String, Object>())
+            .assoc(ForEachFlow.ITEMS, "lines")
+            .assoc(ForEachFlow.ITEM, "line")
+            .assoc(ForEachFlow.RESULT_ITEM, "price")
+            .assoc(ForEachFlow.PARALLELISM, 1)
+            .value()
+        );
+        final Map replaced = sequential.apply(
+            with(new HashMap()).assoc("lines", Arrays.asList(1, 2)).assoc("order", "rate", 5).value()
+        );
+        assertEquals(Arrays.asList(5, 10), getUnsafe(replaced, "lines"));
+        final Map synchronizedContext = Collections.synchronizedMap(
+            with(new HashMap()).assoc("lines", Arrays.asList(1, 2)).assoc("order", "rate", 3).value()
+        );
+        assertEquals(Arrays.asList(3, 6), getUnsafe(sequential.apply(synchronizedContext), "lines"));
+        final Map empty = with(new HashMap()).assoc("order", "rate", 5).value();
+        assertEquals(empty, sequential.apply(empty));
+    }
+
+    @Test
+    public void batchingActionTest() throws Exception {
+        final List<Integer> calls = Collections.synchronizedList(new ArrayList<>());
+        final BatchingAction store = new BatchingAction(
+            "store",
+            contexts -> {
+                calls.add(contexts.size());
+                return contexts.stream()
+                    .map(ctx -> assoc(ctx, "stored", getUnsafe(ctx, Integer.class, "id") * 10))
+                    .collect(Collectors.toList());
+            },
+            with(new HashMap<String, Object>())
+                .assoc(BatchingAction.MAX_BATCH_SIZE, 4)
+                .assoc(BatchingAction.MAX_LINGER_MICROS, 50000)
+                .value()
+        );
+        final List<CompletableFuture<Map>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(store.applyAsync(with(new HashMap()).assoc("id", i).value()).toCompletableFuture());
+        }
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i * 10, getUnsafe(futures.get(i).get(1, TimeUnit.SECONDS), "stored"));
+        }
+        assertEquals(Arrays.asList(4, 4), calls);
+        final Map lingered = store.apply(with(new HashMap()).assoc("id", 9).value());
+        assertEquals(90, getUnsafe(lingered, "stored"));
+        assertEquals(Arrays.asList(4, 4, 1), calls);
+        assertEquals(3, store.batchSizes().count());
+        assertEquals(4, store.batchSizes().max());
+        assertTrue(store.lingerMicros().max() >= 50000);
+        final List<CompletableFuture<Map>> full = Arrays.asList(
+            store.applyAsync(with(new HashMap()).assoc("id", 10).value()).toCompletableFuture(),
+            store.applyAsync(with(new HashMap()).assoc("id", 11).value()).toCompletableFuture(),
+            store.applyAsync(with(new HashMap()).assoc("id", 12).value()).toCompletableFuture(),
+            store.applyAsync(with(new HashMap()).assoc("id", 13).value()).toCompletableFuture()
+        );
+        for (CompletableFuture<Map> future : full) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        Thread.sleep(20);
+        final long enqueuedAfter = System.nanoTime();
+        final Map late = store.applyAsync(with(new HashMap()).assoc("id", 14).value())
+            .toCompletableFuture()
+            .get(1, TimeUnit.SECONDS);
+        assertEquals(140, getUnsafe(late, "stored"));
+        assertTrue(System.nanoTime() - enqueuedAfter >= TimeUnit.MICROSECONDS.toNanos(50000));
+        assertEquals(Arrays.asList(4, 4, 1, 4, 1), calls);
+        final BatchingAction broken = new BatchingAction(
+            "broken", contexts -> Collections.emptyList(), with(new HashMap<String, Object>())
+                .assoc(BatchingAction.MAX_BATCH_SIZE, 1)
+                .value()
+        );
+        try {
+            broken.apply(new HashMap());
+            fail("Batch with wrong number of results should fail");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("broken"));
+        }
+        final ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+        final BatchingAction rejected = new BatchingAction(
+            "rejected", contexts -> contexts, with(new HashMap<String, Object>())
+                .assoc(BatchingAction.MAX_BATCH_SIZE, 4)
+                .assoc(BatchingAction.MAX_LINGER_MICROS, 1000)
+                .assoc(BatchingAction.EXECUTOR_SERVICE, stopped)
+                .value()
+        );
+        final CompletableFuture<Map> lingering = rejected.applyAsync(new HashMap()).toCompletableFuture();
+        try {
+            lingering.get(1, TimeUnit.SECONDS);
+            fail("Batch rejected by executor should fail its callers");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void batchFlowTest() {
+        final AtomicInteger increments = new AtomicInteger();
+        final BatchingAction store = new BatchingAction(
+            "store",
+            contexts -> contexts.stream()
+                .map(ctx -> assoc(ctx, "stored", true))
+                .collect(Collectors.toList()),
+            with(new HashMap<String, Object>()).assoc(BatchingAction.MAX_BATCH_SIZE, 100).value()
+        );
+        final KeywordSelector selector = new KeywordSelector("selector", "type", true);
+        selector.register(new DefaultExtension(
+            "odd",
+            Action.action("odd", ctx -> assoc(ctx, "odd", true)),
+            with(new HashMap()).assoc(KeywordSelector.ConfigurationKeys.KEYWORD_VALUE, "odd").value()
+        ));
+        selector.register(new DefaultExtension(
+            "even",
+            store,
+            with(new HashMap()).assoc(KeywordSelector.ConfigurationKeys.KEYWORD_VALUE, "even").value()
+        ));
+        final Flow flow = new SyncFlow("flow", Arrays.asList(
+            Action.action("increment", ctx -> {
+                increments.incrementAndGet();
+                return assoc(ctx, "id", getUnsafe(ctx, Integer.class, "id") + 1);
+            }),
+            selector,
+            store
+        ));
+        final Actor<Map> actor = new DefaultActor<>(HashMap::new, flow, Function.identity());
+        final List<Consumer<Map>> initializers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int id = i;
+            initializers.add(ctx -> {
+                ctx.put("id", id);
+                ctx.put("type", id % 2 == 0 ? "even" : "odd");
+            });
+        }
+        final List<Map> results = actor.applyAll(initializers);
+        assertEquals(10, results.size());
+        assertEquals(10, increments.get());
+        for (int i = 0; i < 10; i++) {
+            final Map result = results.get(i);
+            assertEquals(i + 1, getUnsafe(result, "id"));
+            assertTrue(getUnsafe(result, Boolean.class, "stored"));
+            assertEquals(i % 2 != 0, result.containsKey("odd"));
+        }
+        final Histogram.Snapshot batches = store.batchSizes();
+        assertEquals(2, batches.count());
+        assertEquals(10, batches.max());
+        final Flow withMiddleware = new SyncFlow("withMiddleware", Collections.singletonList(store),
+            Collections.singletonList(Middleware.middleware("noop", (meta, action) -> action))
+        );
+        final List<Map> fallback = withMiddleware.applyAll(Arrays.asList(new HashMap(), new HashMap()));
+        assertEquals(2, fallback.size());
+        assertEquals(4, store.batchSizes().count());
+    }
+
+    /**
+     * Waits until given number of threads with name prefix are all parked, fails if they are not within a second.
+     */
+    private static List<Thread> awaitParked(String namePrefix, int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (true) {
+            final List<Thread> threads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith(namePrefix))
+                .collect(Collectors.toList());
+            final boolean parked = threads.size() == count
+                && threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING);
+            if (parked) {
+                return threads;
+            }
+            if (System.nanoTime() > deadline) {
+                fail("Threads " + namePrefix + "* are not parked: " + threads.stream()
+                    .map(thread -> thread.getName() + "=" + thread.getState())
+                    .collect(Collectors.toList()));
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void stagedFlowTest() throws Exception {
+        final Map<String, Object> parse = with(new HashMap<String, Object>())
+            .assoc(Core.ActionMeta.STAGE, "parse")
+            .assoc(Core.ActionMeta.STAGE_THREADS, 2)
+            .value();
+        final StagedFlow staged = new StagedFlow("staged", Arrays.asList(
+            new DefaultAction("trim", ctx -> assoc(ctx, "text", getUnsafe(ctx, String.class, "text").trim()),
+                Collections.emptyList(), parse),
+            new DefaultAction("number",
+                ctx -> assoc(ctx, "number", Integer.parseInt(getUnsafe(ctx, String.class, "text"))),
+                Collections.emptyList(), parse),
+            Action.action("double", ctx -> assoc(ctx, "number", getUnsafe(ctx, Integer.class, "number") * 2))
+        ), with(new HashMap<String, Object>()).assoc(StagedFlow.CAPACITY, 4).value());
+        try {
+            assertEquals(2, staged.size());
+            final List<CompletableFuture<Map>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                results.add(staged.applyAsync(
+                    with(new ConcurrentHashMap()).assoc("text", " " + i + " ").value()
+                ).toCompletableFuture());
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i * 2, results.get(i).get(1, TimeUnit.SECONDS).get("number"));
+            }
+            try {
+                staged.apply(with(new ConcurrentHashMap()).assoc("text", "nan").value());
+                fail();
+            } catch (NumberFormatException e) {
+                assertTrue(e.getMessage().contains("nan"));
+            }
+            final List<StagedFlow.StageStats> stats = staged.stats();
+            assertEquals("parse", stats.get(0).name());
+            assertEquals(2, stats.get(0).threads());
+            assertEquals(4, stats.get(0).capacity());
+            assertEquals(1001, stats.get(0).serviceMicros().count());
+            assertEquals("double", stats.get(1).name());
+            assertEquals(1000, stats.get(1).serviceMicros().count());
+            assertEquals(0, stats.get(1).queueDepth());
+            assertTrue(stats.get(1).utilization() >= 0 && stats.get(1).utilization() <= 1);
+            awaitParked("flower-stage-staged-", 3);
+            assertEquals(84, staged.apply(with(new ConcurrentHashMap()).assoc("text", "42").value()).get("number"));
+        } finally {
+            staged.shutdown();
+        }
+        try {
+            staged.apply(with(new ConcurrentHashMap()).assoc("text", "1").value());
+            fail();
+        } catch (RejectedExecutionException e) {
+            assertTrue(e.getMessage().contains("staged"));
+        }
+        try {
+            staged.applyAsync(with(new ConcurrentHashMap()).assoc("text", "1").value())
+                .toCompletableFuture()
+                .get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final StagedFlow inFlight = new StagedFlow("inFlight", Arrays.asList(
+            Action.action("blocked", ctx -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ctx;
+            }),
+            Action.action("next", ctx -> ctx)
+        ), Collections.emptyMap());
+        final CompletableFuture<Map> forwarded = inFlight.applyAsync(new ConcurrentHashMap()).toCompletableFuture();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        inFlight.shutdown();
+        Thread.sleep(50);
+        release.countDown();
+        try {
+            forwarded.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void ringActorTest() throws Exception {
+        final SyncFlow flow = new SyncFlow("flow", Arrays.asList(
+            Action.action("parse", ctx -> {
+                ctx.put("number", Integer.parseInt((String) ctx.get("text")));
+                return ctx;
+            }),
+            Action.action("square", ctx -> {
+                ctx.put("number", (Integer) ctx.get("number") * (Integer) ctx.get("number"));
+                return ctx;
+            }),
+            Action.action("negate", ctx -> {
+                ctx.put("number", -(Integer) ctx.get("number"));
+                return ctx;
+            })
+        ));
+        final RingActor<Integer> ring = new RingActor<>("ring", HashMap::new, flow, ctx -> (Integer) ctx.get("number"),
+            with(new HashMap<String, Object>())
+                .assoc(RingActor.SIZE, 100)
+                .assoc(RingActor.WAIT_STRATEGY, "yield")
+                .value()
+        );
+        assertEquals(128, ring.size());
+        assertEquals(-16, (int) ring.apply(ctx -> ctx.put("text", "4")));
+        final List<Consumer<Map>> initializers = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final String text = String.valueOf(i);
+            initializers.add(ctx -> ctx.put("text", text));
+        }
+        final List<Integer> results = ring.applyAll(initializers);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(-i * i, (int) results.get(i));
+        }
+        try {
+            ring.applyAsync(ctx -> ctx.put("text", "nan")).toCompletableFuture().get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NumberFormatException);
+        }
+        final CompletableFuture<Integer> accepted = ring.applyAsync(ctx -> ctx.put("text", "3")).toCompletableFuture();
+        ring.shutdown();
+        assertEquals(-9, (int) accepted.get(1, TimeUnit.SECONDS));
+        assertTrue(ring.applyAsync(ctx -> ctx.put("text", "5")).toCompletableFuture().isCompletedExceptionally());
+        assertEquals(WaitStrategy.BUSY_SPIN, WaitStrategy.of("busy-spin"));
+        try (RingActor<Integer> blocking = new RingActor<>(
+            "blockingRing", HashMap::new, flow, ctx -> (Integer) ctx.get("number"), Collections.emptyMap()
+        )) {
+            final List<Integer> blockingResults = blocking.applyAll(initializers);
+            assertEquals(-4999 * 4999, (int) blockingResults.get(4999));
+            final List<Thread> ringThreads = awaitParked("flower-ring-blockingRing-", 3);
+            assertEquals(-49, (int) blocking.apply(ctx -> ctx.put("text", "7")));
+            blocking.close();
+            for (Thread thread : ringThreads) {
+                thread.join(1000);
+                assertFalse(thread.isAlive());
+            }
+        }
+    }
+
+    @Test
+    public void managedBlockingTest() throws Exception {
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            final Map<String, Object> onPool = with(new HashMap<String, Object>())
+                .assoc(AsyncFlow.EXECUTOR_SERVICE, pool)
+                .value();
+            final Action inner = new AsyncFlow("inner", Collections.singletonList(
+                Action.action("mark", ctx -> assoc(ctx, "inner", true))
+            ), onPool);
+            final Action nested = new SyncFlow("nested", Arrays.asList(inner, new AwaitAction("await", 10000)));
+            final ForEachFlow forEach = new ForEachFlow("forEach", nested, with(new HashMap<String, Object>())
+                .assoc(ForEachFlow.ITEMS, "items")
+                .assoc(ForEachFlow.RESULT_ITEM, "inner")
+                .assoc(ForEachFlow.PARALLELISM, 2)
+                .assoc(ForEachFlow.THRESHOLD, 1)
+                .value()
+            );
+            final Action outer = new AsyncFlow("outer", Collections.singletonList(
+                Action.action("blockingForEach", forEach::apply)
+            ), onPool);
+            final List<CompletableFuture<Map>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(outer.applyAsync(
+                    with(new ConcurrentHashMap()).assoc("items", Arrays.asList(1, 2, 3, 4)).value()
+                ).toCompletableFuture());
+            }
+            for (CompletableFuture<Map> result : results) {
+                assertEquals(
+                    Arrays.asList(true, true, true, true),
+                    getUnsafe(result.get(10, TimeUnit.SECONDS), List.class, "items")
+                );
+            }
+            final CompletableFuture<String> waited = CompletableFuture.supplyAsync(() -> {
+                final FutureTask<String> task = new FutureTask<>(() -> "done");
+                pool.execute(task);
+                try {
+                    return Futures.get(task, 10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, pool);
+            assertEquals("done", waited.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancellationTest() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            final AtomicInteger skipped = new AtomicInteger();
+            final List<Long> budgets = Collections.synchronizedList(new ArrayList<>());
+            final Middleware budget = Middleware.middleware("budget", (meta, function) -> ctx -> {
+                budgets.add(CancellationToken.of(ctx).get().remaining(TimeUnit.MILLISECONDS));
+                return function.apply(ctx);
+            });
+            final Action slow = new DefaultAction("slow", ctx -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ctx;
+            }, Collections.singletonList(budget));
+            final Action last = Action.action("last", ctx -> {
+                skipped.incrementAndGet();
+                return ctx;
+            });
+            final AsyncFlow asyncFlow = new AsyncFlow("asyncFlow", Arrays.asList(slow, last),
+                with(new HashMap<String, Object>()).assoc(AsyncFlow.EXECUTOR_SERVICE, executorService).value()
+            );
+            final SyncFlow awaiting = new SyncFlow("awaiting", Arrays.asList(asyncFlow, new AwaitAction("await", 50)));
+            try {
+                awaiting.apply(new ConcurrentHashMap());
+                fail();
+            } catch (RuntimeException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            final Map deadlined = Core.FlowMeta.CANCELLATION_PATH.assoc(
+                new ConcurrentHashMap(), CancellationToken.withTimeout(50, TimeUnit.MILLISECONDS)
+            );
+            try {
+                asyncFlow.applyAsync(deadlined).toCompletableFuture().get(1, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof CancellationException);
+            }
+            final CompletableFuture<Map> cancelled = asyncFlow.applyAsync(new ConcurrentHashMap())
+                .toCompletableFuture();
+            assertTrue(cancelled.cancel(false));
+            Thread.sleep(400);
+            assertEquals(0, skipped.get());
+            assertTrue(budgets.size() >= 2);
+            assertEquals(Long.MAX_VALUE, (long) budgets.get(0));
+            assertTrue(budgets.get(1) <= 50);
+        } finally {
+            executorService.shutdownNow();
+        }
     }
 }
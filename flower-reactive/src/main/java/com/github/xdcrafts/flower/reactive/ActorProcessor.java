@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.reactive;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Actor;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGet;
+
+/**
+ * Reactive Streams processor that applies action or actor asynchronously to each received map.
+ * At most 'maxConcurrency' maps (16 by default) are requested from upstream and not yet emitted downstream,
+ * so maps are processed concurrently while downstream keeps up, and nothing more is requested when it does not.
+ * Results are emitted in order of received maps if 'ordered' is set (default), otherwise as they complete.
+ * Failure of any map fails the stream and cancels upstream. Processor accepts a single subscriber.
+ * @param <T> result type
+ */
+@SuppressWarnings("unchecked")
+public class ActorProcessor<T> implements Processor<Map, T> {
+
+    public static final String MAX_CONCURRENCY = "maxConcurrency";
+    public static final String ORDERED = "ordered";
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private final Function<Map, CompletionStage<T>> body;
+    private final int maxConcurrency;
+    private final boolean ordered;
+    private final Queue<Slot<T>> slots = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile Subscription upstream;
+    private volatile Subscriber<? super T> downstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+    private int outstanding;
+    private boolean terminated;
+
+    /**
+     * Result of a single map.
+     * @param <T> result type
+     */
+    private static final class Slot<T> {
+        volatile boolean done;
+        T value;
+        Throwable failure;
+    }
+
+    /**
+     * Creates processor that initializes actor's context with each received map.
+     * @param actor actor
+     * @param configuration configuration
+     */
+    public ActorProcessor(Actor<T> actor, Map configuration) {
+        this(initializing(actor), configuration);
+    }
+
+    private ActorProcessor(Function<Map, CompletionStage<T>> body, Map configuration) {
+        this.body = body;
+        this.maxConcurrency = Math.max(
+            1, dotGet(configuration, Integer.class, MAX_CONCURRENCY).orElse(DEFAULT_MAX_CONCURRENCY)
+        );
+        this.ordered = dotGet(configuration, Boolean.class, ORDERED).orElse(true);
+    }
+
+    private static <T> Function<Map, CompletionStage<T>> initializing(Actor<T> actor) {
+        return element -> actor.applyAsync(ctx -> ctx.putAll(element));
+    }
+
+    /**
+     * Creates processor that applies action to each received map as to its context.
+     * @param action action
+     * @param configuration configuration
+     * @return processor
+     */
+    public static ActorProcessor<Map> of(Action action, Map configuration) {
+        return new ActorProcessor<>(action::applyAsync, configuration);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber can not be null.");
+        }
+        synchronized (this) {
+            if (this.downstream != null) {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                        // Nothing
+                    }
+
+                    @Override
+                    public void cancel() {
+                        // Nothing
+                    }
+                });
+                subscriber.onError(new IllegalStateException("ActorProcessor supports a single subscriber."));
+                return;
+            }
+            this.downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    ActorProcessor.this.error = new IllegalArgumentException(
+                        "Non-positive request of " + n + " elements."
+                    );
+                } else {
+                    addRequested(n);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                ActorProcessor.this.cancelled = true;
+                final Subscription subscription = ActorProcessor.this.upstream;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        });
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (subscription == null) {
+            throw new NullPointerException("Subscription can not be null.");
+        }
+        synchronized (this) {
+            if (this.upstream != null || this.cancelled) {
+                subscription.cancel();
+                return;
+            }
+            this.upstream = subscription;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(Map element) {
+        if (element == null) {
+            throw new NullPointerException("Element can not be null.");
+        }
+        this.active.incrementAndGet();
+        final Slot<T> slot = new Slot<>();
+        if (this.ordered) {
+            this.slots.offer(slot);
+        }
+        CompletionStage<T> stage;
+        try {
+            stage = this.body.apply(element);
+        } catch (RuntimeException e) {
+            complete(slot, null, e);
+            return;
+        }
+        stage.whenComplete((value, failure) -> complete(slot, value, failure));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (throwable == null) {
+            throw new NullPointerException("Throwable can not be null.");
+        }
+        this.error = throwable;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        this.upstreamDone = true;
+        drain();
+    }
+
+    private void complete(Slot<T> slot, T value, Throwable failure) {
+        slot.value = value;
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            slot.failure = failure.getCause();
+        } else if (failure == null && value == null) {
+            slot.failure = new NullPointerException("Processing of element produced null.");
+        } else {
+            slot.failure = failure;
+        }
+        slot.done = true;
+        if (!this.ordered) {
+            this.slots.offer(slot);
+        }
+        drain();
+    }
+
+    private void addRequested(long n) {
+        long current;
+        long next;
+        do {
+            current = this.requested.get();
+            next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!this.requested.compareAndSet(current, next));
+    }
+
+    /**
+     * Emits completed results and requests more maps from upstream, only one thread drains at a time.
+     */
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            final Subscriber<? super T> subscriber = this.downstream;
+            if (subscriber != null && !this.terminated) {
+                emit(subscriber);
+            }
+            missed = this.wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit(Subscriber<? super T> subscriber) {
+        if (this.cancelled) {
+            this.slots.clear();
+            this.terminated = true;
+            return;
+        }
+        final long demand = this.requested.get();
+        long emitted = 0;
+        while (emitted != demand && this.error == null) {
+            final Slot<T> slot = this.slots.peek();
+            if (slot == null || !slot.done) {
+                break;
+            }
+            this.slots.poll();
+            if (slot.failure != null) {
+                this.error = slot.failure;
+                break;
+            }
+            this.outstanding--;
+            this.active.decrementAndGet();
+            emitted++;
+            subscriber.onNext(slot.value);
+            if (this.cancelled) {
+                return;
+            }
+        }
+        if (emitted != 0 && demand != Long.MAX_VALUE) {
+            this.requested.addAndGet(-emitted);
+        }
+        final Subscription subscription = this.upstream;
+        if (this.error != null) {
+            this.terminated = true;
+            this.slots.clear();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            subscriber.onError(this.error);
+            return;
+        }
+        if (this.upstreamDone) {
+            if (this.active.get() == 0) {
+                this.terminated = true;
+                subscriber.onComplete();
+            }
+            return;
+        }
+        if (subscription != null && this.outstanding < this.maxConcurrency) {
+            final int toRequest = this.maxConcurrency - this.outstanding;
+            this.outstanding = this.maxConcurrency;
+            subscription.request(toRequest);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.reactive;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Actor;
+import org.reactivestreams.FlowAdapters;
+
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+/**
+ * Adapters of actions and actors to java.util.concurrent.Flow processors, available on Java 9 or newer.
+ * Processors behave exactly as ActorProcessor with the same configuration.
+ */
+public final class FlowProcessors {
+
+    private FlowProcessors() {
+        // Nothing
+    }
+
+    /**
+     * Creates Flow processor that initializes actor's context with each received map.
+     * @param actor actor
+     * @param configuration configuration
+     * @param <T> result type
+     * @return processor
+     */
+    public static <T> Flow.Processor<Map, T> of(Actor<T> actor, Map configuration) {
+        return FlowAdapters.toFlowProcessor(new ActorProcessor<>(actor, configuration));
+    }
+
+    /**
+     * Creates Flow processor that applies action to each received map as to its context.
+     * @param action action
+     * @param configuration configuration
+     * @return processor
+     */
+    public static Flow.Processor<Map, Map> of(Action action, Map configuration) {
+        return FlowAdapters.toFlowProcessor(ActorProcessor.of(action, configuration));
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.reactive;
+
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Actor;
+import com.github.xdcrafts.flower.core.impl.DefaultActor;
+import com.github.xdcrafts.flower.core.impl.flows.AsyncFlow;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.github.xdcrafts.flower.tools.map.MapApi.assoc;
+import static com.github.xdcrafts.flower.tools.map.MapApi.getUnsafe;
+import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ActorProcessor tests.
+ */
+@SuppressWarnings("unchecked")
+public class ActorProcessorTest {
+
+    private static final int ELEMENTS = 10;
+
+    @Test
+    public void orderedTest() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final ActorProcessor<Map> processor = ActorProcessor.of(
+            slowFlow(inFlight, maxInFlight),
+            with(new HashMap<String, Object>()).assoc(ActorProcessor.MAX_CONCURRENCY, 4).value()
+        );
+        final TestPublisher publisher = new TestPublisher(ELEMENTS);
+        final TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertEquals(ELEMENTS, subscriber.values.size());
+        for (int i = 0; i < ELEMENTS; i++) {
+            assertEquals(i, getUnsafe(subscriber.values.get(i), "processed"));
+        }
+        assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void unorderedTest() throws Exception {
+        final ActorProcessor<Map> processor = ActorProcessor.of(
+            slowFlow(new AtomicInteger(), new AtomicInteger()),
+            with(new HashMap<String, Object>())
+                .assoc(ActorProcessor.MAX_CONCURRENCY, ELEMENTS)
+                .assoc(ActorProcessor.ORDERED, false)
+                .value()
+        );
+        final TestPublisher publisher = new TestPublisher(ELEMENTS);
+        final TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        final HashSet<Object> processed = new HashSet<>();
+        for (Map value : subscriber.values) {
+            processed.add(getUnsafe(value, "processed"));
+        }
+        assertEquals(ELEMENTS, processed.size());
+        assertNotEquals(0, getUnsafe(subscriber.values.get(0), "processed"));
+    }
+
+    @Test
+    public void backpressureTest() throws Exception {
+        final ActorProcessor<Map> processor = ActorProcessor.of(
+            Action.action("identity", Function.identity()),
+            with(new HashMap<String, Object>()).assoc(ActorProcessor.MAX_CONCURRENCY, 4).value()
+        );
+        final TestPublisher publisher = new TestPublisher(1000);
+        final TestSubscriber subscriber = new TestSubscriber(2);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        assertEquals(2, subscriber.values.size());
+        assertEquals(6, publisher.requested.get());
+        subscriber.subscription.request(3);
+        assertEquals(5, subscriber.values.size());
+        assertEquals(9, publisher.requested.get());
+    }
+
+    @Test
+    public void actorErrorTest() throws Exception {
+        final Actor<Integer> actor = new DefaultActor<>(
+            HashMap::new,
+            Action.action("fail", ctx -> {
+                if (getUnsafe(ctx, Integer.class, "id") == 3) {
+                    throw new IllegalStateException("failed");
+                }
+                return ctx;
+            }),
+            ctx -> getUnsafe(ctx, Integer.class, "id")
+        );
+        final ActorProcessor<Integer> processor = new ActorProcessor<>(actor, Collections.emptyMap());
+        final TestPublisher publisher = new TestPublisher(ELEMENTS);
+        final TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertEquals(3, subscriber.values.size());
+        assertTrue(publisher.cancelled);
+    }
+
+    private static Action slowFlow(AtomicInteger inFlight, AtomicInteger maxInFlight) {
+        return new AsyncFlow(
+            "slowFlow",
+            Collections.singletonList(Action.action("slow", ctx -> {
+                final int id = getUnsafe(ctx, Integer.class, "id");
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep((ELEMENTS - id) * 5);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                return assoc(ctx, "processed", id);
+            })),
+            with(new HashMap<String, Object>()).assoc(AsyncFlow.VIRTUAL_THREADS, true).value()
+        );
+    }
+
+    /**
+     * Publisher of maps with ids that emits synchronously on request.
+     */
+    private static final class TestPublisher implements Publisher<Map> {
+
+        private final int size;
+        private final AtomicLong requested = new AtomicLong();
+        private volatile boolean cancelled;
+        private int next;
+        private boolean emitting;
+
+        private TestPublisher(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Map> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    requested.addAndGet(n);
+                    emit(subscriber);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+
+        private synchronized void emit(Subscriber<? super Map> subscriber) {
+            if (this.emitting) {
+                return;
+            }
+            this.emitting = true;
+            while (!this.cancelled && this.next < this.size && this.next < this.requested.get()) {
+                subscriber.onNext(with(new HashMap()).assoc("id", this.next++).value());
+            }
+            if (!this.cancelled && this.next == this.size) {
+                this.next++;
+                subscriber.onComplete();
+            }
+            this.emitting = false;
+        }
+    }
+
+    /**
+     * Subscriber that collects values and requests given number of them on subscription.
+     */
+    private static final class TestSubscriber implements Subscriber<Object> {
+
+        private final long initialRequest;
+        private final List<Map> values = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        private TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+            s.request(this.initialRequest);
+        }
+
+        @Override
+        public void onNext(Object value) {
+            this.values.add(value instanceof Map ? (Map) value : with(new HashMap()).assoc("id", value).value());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.done.countDown();
+        }
+    }
+}
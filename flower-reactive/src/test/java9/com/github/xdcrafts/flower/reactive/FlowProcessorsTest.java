@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.reactive;
+
+import com.github.xdcrafts.flower.core.Action;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.xdcrafts.flower.tools.map.MapApi.assoc;
+import static com.github.xdcrafts.flower.tools.map.MapApi.getUnsafe;
+import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FlowProcessors tests.
+ */
+@SuppressWarnings("unchecked")
+public class FlowProcessorsTest {
+
+    @Test
+    public void test() throws Exception {
+        final Flow.Processor<Map, Map> processor = FlowProcessors.of(
+            Action.action("double", ctx -> assoc(ctx, "doubled", getUnsafe(ctx, Integer.class, "id") * 2)),
+            Collections.emptyMap()
+        );
+        final List<Object> values = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        processor.subscribe(new Flow.Subscriber<Map>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Map item) {
+                values.add(item.get("doubled"));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+        try (SubmissionPublisher<Map> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 100; i++) {
+                publisher.submit(with(new HashMap()).assoc("id", i).value());
+            }
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(100, values.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 2, values.get(i));
+        }
+    }
+}
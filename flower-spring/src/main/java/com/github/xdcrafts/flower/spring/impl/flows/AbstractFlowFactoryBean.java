@@ -17,14 +17,18 @@
 package com.github.xdcrafts.flower.spring.impl.flows;
 
 import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
 import com.github.xdcrafts.flower.core.Middleware;
 import com.github.xdcrafts.flower.core.impl.actions.DefaultAction;
+import com.github.xdcrafts.flower.core.impl.actions.DelegatingAction;
 import com.github.xdcrafts.flower.spring.impl.AbstractActionFactoryBean;
 import com.github.xdcrafts.flower.tools.ClassApi;
 
 import java.security.SecureRandom;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Abstract flow factory bean.
@@ -36,10 +40,35 @@ public abstract class AbstractFlowFactoryBean<T> extends AbstractActionFactoryBe
 
     /**
      * Convert supplied object to of action if possible.
+     * Action of step definition that declares meta is wrapped into DelegatingAction of its own, so the same
+     * action bean may be used by several flows with different declarations.
      */
     protected Action toAction(Object item) {
         if (item instanceof Action) {
             return (Action) item;
+        } else if (item instanceof StepDefinition) {
+            final StepDefinition definition = (StepDefinition) item;
+            final Action action = toAction(definition.getStep());
+            final Map<String, Object> meta = new HashMap<>();
+            if (definition.getReads() != null) {
+                meta.put(Core.ActionMeta.READS, definition.getReads());
+            }
+            if (definition.getWrites() != null) {
+                meta.put(Core.ActionMeta.WRITES, definition.getWrites());
+            }
+            if (definition.getStage() != null) {
+                meta.put(Core.ActionMeta.STAGE, definition.getStage());
+            }
+            if (definition.getThreads() != null) {
+                meta.put(Core.ActionMeta.STAGE_THREADS, definition.getThreads());
+            }
+            if (definition.getCapacity() != null) {
+                meta.put(Core.ActionMeta.STAGE_CAPACITY, definition.getCapacity());
+            }
+            if (meta.isEmpty()) {
+                return action;
+            }
+            return new DelegatingAction(action, meta);
         } else if (item instanceof String) {
             final String definition = (String) item;
             return new DefaultAction(
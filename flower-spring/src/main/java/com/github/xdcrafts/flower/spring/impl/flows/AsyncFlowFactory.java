@@ -17,29 +17,44 @@
 package com.github.xdcrafts.flower.spring.impl.flows;
 
 import com.github.xdcrafts.flower.core.impl.flows.AsyncFlow;
-import org.springframework.beans.factory.annotation.Required;
-
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
  * Spring factory bean for basic async actions that uses bean name as action name.
+ * Executor service and virtual threads mode may be set either in configuration map or by dedicated properties.
  */
 public class AsyncFlowFactory extends AbstractFlowFactoryBean<AsyncFlow> {
 
     private List<Object> actions;
     private Map configuration;
+    private ExecutorService executorService;
+    private Boolean virtualThreads;
+    private Boolean fused;
 
     public void setActions(List<Object> actions) {
         this.actions = actions;
     }
 
-    @Required
     public void setConfiguration(Map configuration) {
         this.configuration = configuration;
     }
 
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public void setFused(boolean fused) {
+        this.fused = fused;
+    }
+
     @Override
     public Class<?> getObjectType() {
         return AsyncFlow.class;
@@ -47,10 +62,22 @@ public class AsyncFlowFactory extends AbstractFlowFactoryBean<AsyncFlow> {
 
     @Override
     protected AsyncFlow createInstance() throws Exception {
+        final Map<Object, Object> flowConfiguration = this.configuration == null
+            ? new HashMap<>()
+            : new HashMap<>(this.configuration);
+        if (this.executorService != null) {
+            flowConfiguration.put(AsyncFlow.EXECUTOR_SERVICE, this.executorService);
+        }
+        if (this.virtualThreads != null) {
+            flowConfiguration.put(AsyncFlow.VIRTUAL_THREADS, this.virtualThreads);
+        }
+        if (this.fused != null) {
+            flowConfiguration.put(AsyncFlow.FUSED, this.fused);
+        }
         return new AsyncFlow(
             getBeanName(),
             this.actions.stream().map(this::toAction).collect(Collectors.toList()),
-            this.configuration, getMiddleware(getBeanName())
+            flowConfiguration, getMiddleware(getBeanName())
         );
     }
 }
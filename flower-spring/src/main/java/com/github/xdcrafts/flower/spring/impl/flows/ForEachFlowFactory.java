@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.spring.impl.flows;
+
+import com.github.xdcrafts.flower.core.impl.flows.ForEachFlow;
+import org.springframework.beans.factory.annotation.Required;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Spring factory bean for for-each flows that uses bean name as action name.
+ * Paths, parallelism, threshold, ordering and pool may be set either in configuration map or by dedicated properties.
+ */
+public class ForEachFlowFactory extends AbstractFlowFactoryBean<ForEachFlow> {
+
+    private Object action;
+    private Map configuration;
+    private String items;
+    private String item;
+    private String result;
+    private String resultItem;
+    private Integer parallelism;
+    private Integer threshold;
+    private Boolean ordered;
+    private ForkJoinPool forkJoinPool;
+
+    @Required
+    public void setAction(Object action) {
+        this.action = action;
+    }
+
+    public void setConfiguration(Map configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setItems(String items) {
+        this.items = items;
+    }
+
+    public void setItem(String item) {
+        this.item = item;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public void setResultItem(String resultItem) {
+        this.resultItem = resultItem;
+    }
+
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setThreshold(Integer threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setOrdered(Boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return ForEachFlow.class;
+    }
+
+    @Override
+    protected ForEachFlow createInstance() throws Exception {
+        final Map<Object, Object> flowConfiguration = this.configuration == null
+            ? new HashMap<>()
+            : new HashMap<>(this.configuration);
+        putIfNotNull(flowConfiguration, ForEachFlow.ITEMS, this.items);
+        putIfNotNull(flowConfiguration, ForEachFlow.ITEM, this.item);
+        putIfNotNull(flowConfiguration, ForEachFlow.RESULT, this.result);
+        putIfNotNull(flowConfiguration, ForEachFlow.RESULT_ITEM, this.resultItem);
+        putIfNotNull(flowConfiguration, ForEachFlow.PARALLELISM, this.parallelism);
+        putIfNotNull(flowConfiguration, ForEachFlow.THRESHOLD, this.threshold);
+        putIfNotNull(flowConfiguration, ForEachFlow.ORDERED, this.ordered);
+        putIfNotNull(flowConfiguration, ForEachFlow.FORK_JOIN_POOL, this.forkJoinPool);
+        return new ForEachFlow(
+            getBeanName(), toAction(this.action), flowConfiguration, getMiddleware(getBeanName())
+        );
+    }
+
+    private static void putIfNotNull(Map<Object, Object> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.spring.impl.flows;
+
+import com.github.xdcrafts.flower.core.impl.flows.ParallelFlow;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Spring factory bean for parallel flows that uses bean name as action name.
+ * Executor service and merge strategy may be set either in configuration map or by dedicated properties.
+ */
+public class ParallelFlowFactory extends AbstractFlowFactoryBean<ParallelFlow> {
+
+    private List<Object> actions;
+    private Map configuration;
+    private ExecutorService executorService;
+    private Object mergeStrategy;
+
+    public void setActions(List<Object> actions) {
+        this.actions = actions;
+    }
+
+    public void setConfiguration(Map configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public void setMergeStrategy(Object mergeStrategy) {
+        this.mergeStrategy = mergeStrategy;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return ParallelFlow.class;
+    }
+
+    @Override
+    protected ParallelFlow createInstance() throws Exception {
+        final Map<Object, Object> flowConfiguration = this.configuration == null
+            ? new HashMap<>()
+            : new HashMap<>(this.configuration);
+        if (this.executorService != null) {
+            flowConfiguration.put(ParallelFlow.EXECUTOR_SERVICE, this.executorService);
+        }
+        if (this.mergeStrategy != null) {
+            flowConfiguration.put(ParallelFlow.MERGE_STRATEGY, this.mergeStrategy);
+        }
+        return new ParallelFlow(
+            getBeanName(),
+            this.actions.stream().map(this::toAction).collect(Collectors.toList()),
+            flowConfiguration, getMiddleware(getBeanName())
+        );
+    }
+}
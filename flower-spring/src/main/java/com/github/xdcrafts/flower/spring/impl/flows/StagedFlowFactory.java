@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.spring.impl.flows;
+
+import com.github.xdcrafts.flower.core.impl.flows.StagedFlow;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Spring factory bean for staged flows that uses bean name as action name.
+ * Default stage threads and queue capacity may be set either in configuration map or by dedicated properties.
+ */
+public class StagedFlowFactory extends AbstractFlowFactoryBean<StagedFlow> {
+
+    private List<Object> actions;
+    private Map configuration;
+    private Integer threads;
+    private Integer capacity;
+
+    public void setActions(List<Object> actions) {
+        this.actions = actions;
+    }
+
+    public void setConfiguration(Map configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return StagedFlow.class;
+    }
+
+    @Override
+    protected StagedFlow createInstance() throws Exception {
+        final Map<Object, Object> flowConfiguration = this.configuration == null
+            ? new HashMap<>()
+            : new HashMap<>(this.configuration);
+        if (this.threads != null) {
+            flowConfiguration.put(StagedFlow.THREADS, this.threads);
+        }
+        if (this.capacity != null) {
+            flowConfiguration.put(StagedFlow.CAPACITY, this.capacity);
+        }
+        return new StagedFlow(
+            getBeanName(),
+            this.actions.stream().map(this::toAction).collect(Collectors.toList()),
+            flowConfiguration, getMiddleware(getBeanName())
+        );
+    }
+
+    @Override
+    protected void destroyInstance(StagedFlow instance) throws Exception {
+        instance.shutdown();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.spring.impl.flows;
+
+/**
+ * Flow step, that is an action or method definition, with context paths it declares to read and write
+ * and stage it runs in with stage's pool sizing.
+ */
+public class StepDefinition {
+
+    private Object step;
+    private String reads;
+    private String writes;
+    private String stage;
+    private Integer threads;
+    private Integer capacity;
+
+    public Object getStep() {
+        return this.step;
+    }
+
+    public void setStep(Object step) {
+        this.step = step;
+    }
+
+    public String getReads() {
+        return this.reads;
+    }
+
+    public void setReads(String reads) {
+        this.reads = reads;
+    }
+
+    public String getWrites() {
+        return this.writes;
+    }
+
+    public void setWrites(String writes) {
+        this.writes = writes;
+    }
+
+    public String getStage() {
+        return this.stage;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public Integer getThreads() {
+        return this.threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    public Integer getCapacity() {
+        return this.capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+}
@@ -16,24 +16,47 @@
 
 package com.github.xdcrafts.flower.spring.impl.flows;
 
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.impl.flows.DagSyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.FusedSyncFlow;
 import com.github.xdcrafts.flower.core.impl.flows.SyncFlow;
 import org.springframework.beans.factory.annotation.Required;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
  * Spring factory bean for basic sync actions that uses bean name as it's name.
+ * If 'fused' is set then FusedSyncFlow is created, if 'parallel' is set then DagSyncFlow is created,
+ * that runs independent actions concurrently on executor service according to their declared reads and writes.
  */
 public class SyncFlowFactory extends AbstractFlowFactoryBean<SyncFlow> {
 
     private List<Object> actions;
+    private boolean fused;
+    private boolean parallel;
+    private ExecutorService executorService;
 
     @Required
     public void setActions(List<Object> actions) {
         this.actions = actions;
     }
 
+    public void setFused(boolean fused) {
+        this.fused = fused;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
     @Override
     public Class<?> getObjectType() {
         return SyncFlow.class;
@@ -41,10 +64,19 @@ public class SyncFlowFactory extends AbstractFlowFactoryBean<SyncFlow> {
 
     @Override
     protected SyncFlow createInstance() throws Exception {
-        return new SyncFlow(
-            getBeanName(),
-            this.actions.stream().map(this::toAction).collect(Collectors.toList()),
-            getMiddleware(getBeanName())
-        );
+        final List<Action> flowActions = this.actions.stream().map(this::toAction).collect(Collectors.toList());
+        if (this.parallel) {
+            if (this.fused) {
+                throw new IllegalArgumentException("Flow '" + getBeanName() + "' can not be both fused and parallel.");
+            }
+            final Map<String, Object> configuration = new HashMap<>();
+            if (this.executorService != null) {
+                configuration.put(DagSyncFlow.EXECUTOR_SERVICE, this.executorService);
+            }
+            return new DagSyncFlow(getBeanName(), flowActions, configuration, getMiddleware(getBeanName()));
+        }
+        return this.fused
+            ? new FusedSyncFlow(getBeanName(), flowActions, getMiddleware(getBeanName()))
+            : new SyncFlow(getBeanName(), flowActions, getMiddleware(getBeanName()));
     }
 }
@@ -17,9 +17,15 @@
 package com.github.xdcrafts.flower.spring.impl.selectors;
 
 import com.github.xdcrafts.flower.core.impl.selectors.KeywordSelector;
+import com.github.xdcrafts.flower.core.impl.selectors.WithMiddlewareSelectorBase;
+import com.github.xdcrafts.flower.core.impl.selectors.WithMiddlewareSelectorBase.ExecutionPolicy;
 import com.github.xdcrafts.flower.spring.impl.AbstractActionFactoryBean;
 import org.springframework.beans.factory.annotation.Required;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
 /**
  * KeywordSelector factory bean.
  */
@@ -27,6 +33,9 @@ public class KeywordSelectorFactory extends AbstractActionFactoryBean<KeywordSel
 
     private String keyword;
     private boolean required = true;
+    private ExecutionPolicy executionPolicy = ExecutionPolicy.SEQUENTIAL;
+    private ExecutorService executorService;
+    private Object mergeStrategy;
 
     @Required
     public void setKeyword(String keyword) {
@@ -37,6 +46,18 @@ public class KeywordSelectorFactory extends AbstractActionFactoryBean<KeywordSel
         this.required = required;
     }
 
+    public void setExecutionPolicy(ExecutionPolicy executionPolicy) {
+        this.executionPolicy = executionPolicy;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public void setMergeStrategy(Object mergeStrategy) {
+        this.mergeStrategy = mergeStrategy;
+    }
+
     @Override
     public Class<?> getObjectType() {
         return KeywordSelector.class;
@@ -45,7 +66,19 @@ public class KeywordSelectorFactory extends AbstractActionFactoryBean<KeywordSel
     @Override
     protected KeywordSelector createInstance() throws Exception {
         return new KeywordSelector(
-            getBeanName(), this.keyword, this.required, getMiddleware(getBeanName())
+            getBeanName(), this.keyword, this.required, configuration(), getMiddleware(getBeanName())
         );
     }
+
+    private Map<String, Object> configuration() {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put(WithMiddlewareSelectorBase.EXECUTION_POLICY, this.executionPolicy);
+        if (this.executorService != null) {
+            configuration.put(WithMiddlewareSelectorBase.EXECUTOR_SERVICE, this.executorService);
+        }
+        if (this.mergeStrategy != null) {
+            configuration.put(WithMiddlewareSelectorBase.MERGE_STRATEGY, this.mergeStrategy);
+        }
+        return configuration;
+    }
 }
@@ -17,19 +17,50 @@
 package com.github.xdcrafts.flower.spring.impl.selectors;
 
 import com.github.xdcrafts.flower.core.impl.selectors.PredicateSelector;
+import com.github.xdcrafts.flower.core.impl.selectors.WithMiddlewareSelectorBase;
+import com.github.xdcrafts.flower.core.impl.selectors.WithMiddlewareSelectorBase.ExecutionPolicy;
 import com.github.xdcrafts.flower.spring.impl.AbstractActionFactoryBean;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
 /**
  * PredicateSelector factory bean.
  */
 public class PredicateSelectorFactory extends AbstractActionFactoryBean<PredicateSelector> {
 
     private boolean required;
+    private PredicateSelector.MatchPolicy matchPolicy = PredicateSelector.MatchPolicy.ALL;
+    private String discriminator;
+    private ExecutionPolicy executionPolicy = ExecutionPolicy.SEQUENTIAL;
+    private ExecutorService executorService;
+    private Object mergeStrategy;
 
     public void setRequired(boolean required) {
         this.required = required;
     }
 
+    public void setMatchPolicy(PredicateSelector.MatchPolicy matchPolicy) {
+        this.matchPolicy = matchPolicy;
+    }
+
+    public void setDiscriminator(String discriminator) {
+        this.discriminator = discriminator;
+    }
+
+    public void setExecutionPolicy(ExecutionPolicy executionPolicy) {
+        this.executionPolicy = executionPolicy;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public void setMergeStrategy(Object mergeStrategy) {
+        this.mergeStrategy = mergeStrategy;
+    }
+
     @Override
     public Class<?> getObjectType() {
         return PredicateSelector.class;
@@ -37,6 +68,25 @@ public class PredicateSelectorFactory extends AbstractActionFactoryBean<Predicat
 
     @Override
     protected PredicateSelector createInstance() throws Exception {
-        return new PredicateSelector(getBeanName(), this.required, getMiddleware(getBeanName()));
+        return new PredicateSelector(
+            getBeanName(),
+            this.required,
+            this.matchPolicy,
+            this.discriminator,
+            configuration(),
+            getMiddleware(getBeanName())
+        );
+    }
+
+    private Map<String, Object> configuration() {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put(WithMiddlewareSelectorBase.EXECUTION_POLICY, this.executionPolicy);
+        if (this.executorService != null) {
+            configuration.put(WithMiddlewareSelectorBase.EXECUTOR_SERVICE, this.executorService);
+        }
+        if (this.mergeStrategy != null) {
+            configuration.put(WithMiddlewareSelectorBase.MERGE_STRATEGY, this.mergeStrategy);
+        }
+        return configuration;
     }
 }
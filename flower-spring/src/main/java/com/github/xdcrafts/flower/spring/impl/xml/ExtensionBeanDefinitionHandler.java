@@ -49,6 +49,18 @@ public class ExtensionBeanDefinitionHandler extends AbstractSingleBeanDefinition
         if (predicateNode != null) {
             configuration.put("predicate", new RuntimeBeanReference(predicateNode.getTextContent()));
         }
+        final Node priorityNode = element
+            .getElementsByTagNameNS("http://xdcrafts.github.com/schema/flower", "priority")
+            .item(0);
+        if (priorityNode != null) {
+            configuration.put("priority", priorityNode.getTextContent());
+        }
+        final Node discriminatorValueNode = element
+            .getElementsByTagNameNS("http://xdcrafts.github.com/schema/flower", "discriminator-value")
+            .item(0);
+        if (discriminatorValueNode != null) {
+            configuration.put("discriminator-value", discriminatorValueNode.getTextContent());
+        }
         bean
             .addPropertyReference("action", element.getAttribute("action"))
             .addPropertyValue("configuration", configuration);
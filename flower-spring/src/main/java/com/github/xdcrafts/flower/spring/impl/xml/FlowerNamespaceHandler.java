@@ -25,6 +25,10 @@ public class FlowerNamespaceHandler extends NamespaceHandlerSupport {
     @Override
     public void init() {
         registerBeanDefinitionParser("sync-flow", new SyncFlowBeanDefinitionHandler());
+        registerBeanDefinitionParser("async-flow", new AsyncFlowBeanDefinitionHandler());
+        registerBeanDefinitionParser("parallel-flow", new ParallelFlowBeanDefinitionHandler());
+        registerBeanDefinitionParser("for-each-flow", new ForEachFlowBeanDefinitionHandler());
+        registerBeanDefinitionParser("staged-flow", new StagedFlowBeanDefinitionHandler());
         registerBeanDefinitionParser("keyword-selector", new KeywordSelectorBeanDefinitionHandler());
         registerBeanDefinitionParser("predicate-selector", new PredicateSelectorBeanDefinitionHandler());
         registerBeanDefinitionParser("extension", new ExtensionBeanDefinitionHandler());
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.spring.impl.xml;
+
+import com.github.xdcrafts.flower.spring.impl.flows.ForEachFlowFactory;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.xml.AbstractSingleBeanDefinitionParser;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * ForEachFlowBeanDefinitionHandler.
+ */
+public class ForEachFlowBeanDefinitionHandler extends AbstractSingleBeanDefinitionParser {
+
+    protected Class getBeanClass(Element element) {
+        return ForEachFlowFactory.class;
+    }
+
+    protected void doParse(Element element, BeanDefinitionBuilder bean) {
+        final NodeList actionNodes = element.getElementsByTagName("*");
+        if (actionNodes == null || actionNodes.getLength() != 1) {
+            throw new IllegalArgumentException("Exactly one action or method expected in for-each-flow.");
+        }
+        final Node node = actionNodes.item(0);
+        final String type = node.getLocalName();
+        if (type.equalsIgnoreCase("method")) {
+            bean.addPropertyValue("action", node.getTextContent());
+        } else if (type.equalsIgnoreCase("action")) {
+            bean.addPropertyValue("action", new RuntimeBeanReference(node.getTextContent()));
+        } else {
+            throw new IllegalArgumentException("Unknown element type: " + type);
+        }
+        final String items = element.getAttribute("items");
+        if (items != null && !items.isEmpty()) {
+            bean.addPropertyValue("items", items);
+        }
+        final String item = element.getAttribute("item");
+        if (item != null && !item.isEmpty()) {
+            bean.addPropertyValue("item", item);
+        }
+        final String result = element.getAttribute("result");
+        if (result != null && !result.isEmpty()) {
+            bean.addPropertyValue("result", result);
+        }
+        final String resultItem = element.getAttribute("result-item");
+        if (resultItem != null && !resultItem.isEmpty()) {
+            bean.addPropertyValue("resultItem", resultItem);
+        }
+        final String parallelism = element.getAttribute("parallelism");
+        if (parallelism != null && !parallelism.isEmpty()) {
+            bean.addPropertyValue("parallelism", Integer.valueOf(parallelism));
+        }
+        final String threshold = element.getAttribute("threshold");
+        if (threshold != null && !threshold.isEmpty()) {
+            bean.addPropertyValue("threshold", Integer.valueOf(threshold));
+        }
+        final String ordered = element.getAttribute("ordered");
+        if (ordered != null && !ordered.isEmpty()) {
+            bean.addPropertyValue("ordered", Boolean.valueOf(ordered));
+        }
+        final String forkJoinPool = element.getAttribute("fork-join-pool");
+        if (forkJoinPool != null && !forkJoinPool.isEmpty()) {
+            bean.addPropertyReference("forkJoinPool", forkJoinPool);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.github.xdcrafts.flower.spring.impl.xml;
 
+import com.github.xdcrafts.flower.core.impl.selectors.WithMiddlewareSelectorBase.ExecutionPolicy;
 import com.github.xdcrafts.flower.spring.impl.selectors.KeywordSelectorFactory;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.AbstractSingleBeanDefinitionParser;
@@ -37,5 +38,17 @@ public class KeywordSelectorBeanDefinitionHandler extends AbstractSingleBeanDefi
         if (required != null && !required.isEmpty()) {
             bean.addPropertyValue("required", Boolean.valueOf(required));
         }
+        final String executionPolicy = element.getAttribute("execution-policy");
+        if (executionPolicy != null && !executionPolicy.isEmpty()) {
+            bean.addPropertyValue("executionPolicy", ExecutionPolicy.valueOf(executionPolicy.toUpperCase()));
+        }
+        final String executor = element.getAttribute("executor");
+        if (executor != null && !executor.isEmpty()) {
+            bean.addPropertyReference("executorService", executor);
+        }
+        final String mergeStrategy = element.getAttribute("merge-strategy");
+        if (mergeStrategy != null && !mergeStrategy.isEmpty()) {
+            bean.addPropertyValue("mergeStrategy", mergeStrategy);
+        }
     }
 }
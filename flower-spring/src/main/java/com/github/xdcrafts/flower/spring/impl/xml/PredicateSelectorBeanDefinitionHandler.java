@@ -16,6 +16,8 @@
 
 package com.github.xdcrafts.flower.spring.impl.xml;
 
+import com.github.xdcrafts.flower.core.impl.selectors.PredicateSelector;
+import com.github.xdcrafts.flower.core.impl.selectors.WithMiddlewareSelectorBase.ExecutionPolicy;
 import com.github.xdcrafts.flower.spring.impl.selectors.PredicateSelectorFactory;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.AbstractSingleBeanDefinitionParser;
@@ -35,5 +37,25 @@ public class PredicateSelectorBeanDefinitionHandler extends AbstractSingleBeanDe
         if (required != null && !required.isEmpty()) {
             bean.addPropertyValue("required", Boolean.valueOf(required));
         }
+        final String matchPolicy = element.getAttribute("match-policy");
+        if (matchPolicy != null && !matchPolicy.isEmpty()) {
+            bean.addPropertyValue("matchPolicy", PredicateSelector.MatchPolicy.valueOf(matchPolicy.toUpperCase()));
+        }
+        final String discriminator = element.getAttribute("discriminator");
+        if (discriminator != null && !discriminator.isEmpty()) {
+            bean.addPropertyValue("discriminator", discriminator);
+        }
+        final String executionPolicy = element.getAttribute("execution-policy");
+        if (executionPolicy != null && !executionPolicy.isEmpty()) {
+            bean.addPropertyValue("executionPolicy", ExecutionPolicy.valueOf(executionPolicy.toUpperCase()));
+        }
+        final String executor = element.getAttribute("executor");
+        if (executor != null && !executor.isEmpty()) {
+            bean.addPropertyReference("executorService", executor);
+        }
+        final String mergeStrategy = element.getAttribute("merge-strategy");
+        if (mergeStrategy != null && !mergeStrategy.isEmpty()) {
+            bean.addPropertyValue("mergeStrategy", mergeStrategy);
+        }
     }
 }
@@ -16,6 +16,7 @@
 
 package com.github.xdcrafts.flower.spring.impl.xml;
 
+import com.github.xdcrafts.flower.spring.impl.flows.StepDefinition;
 import com.github.xdcrafts.flower.spring.impl.flows.SyncFlowFactory;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
@@ -41,15 +42,44 @@ public class SyncFlowBeanDefinitionHandler extends AbstractSingleBeanDefinitionP
             for (int i = 0; i < actionNodes.getLength(); i++) {
                 final Node node = actionNodes.item(i);
                 final String type = node.getLocalName();
+                final Object step;
                 if (type.equalsIgnoreCase("method")) {
-                    actions.add(node.getTextContent());
+                    step = node.getTextContent();
                 } else if (type.equalsIgnoreCase("action")) {
-                    actions.add(new RuntimeBeanReference(node.getTextContent()));
+                    step = new RuntimeBeanReference(node.getTextContent());
                 } else {
                     throw new IllegalArgumentException("Unknown element type: " + type);
                 }
+                final String reads = ((Element) node).getAttribute("reads");
+                final String writes = ((Element) node).getAttribute("writes");
+                if (reads.isEmpty() && writes.isEmpty()) {
+                    actions.add(step);
+                } else {
+                    final BeanDefinitionBuilder stepDefinition = BeanDefinitionBuilder
+                        .genericBeanDefinition(StepDefinition.class)
+                        .addPropertyValue("step", step);
+                    if (!reads.isEmpty()) {
+                        stepDefinition.addPropertyValue("reads", reads);
+                    }
+                    if (!writes.isEmpty()) {
+                        stepDefinition.addPropertyValue("writes", writes);
+                    }
+                    actions.add(stepDefinition.getBeanDefinition());
+                }
             }
         }
         bean.addPropertyValue("actions", actions);
+        final String fused = element.getAttribute("fused");
+        if (fused != null && !fused.isEmpty()) {
+            bean.addPropertyValue("fused", Boolean.valueOf(fused));
+        }
+        final String parallel = element.getAttribute("parallel");
+        if (parallel != null && !parallel.isEmpty()) {
+            bean.addPropertyValue("parallel", Boolean.valueOf(parallel));
+        }
+        final String executor = element.getAttribute("executor");
+        if (executor != null && !executor.isEmpty()) {
+            bean.addPropertyReference("executorService", executor);
+        }
     }
 }
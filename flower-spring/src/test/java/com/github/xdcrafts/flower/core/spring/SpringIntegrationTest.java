@@ -16,23 +16,45 @@
 
 package com.github.xdcrafts.flower.core.spring;
 
+import com.github.xdcrafts.flower.core.Action;
+import com.github.xdcrafts.flower.core.Core;
 import com.github.xdcrafts.flower.core.Flow;
+import com.github.xdcrafts.flower.core.impl.actions.AwaitAction;
+import com.github.xdcrafts.flower.core.impl.actions.DelegatingAction;
+import com.github.xdcrafts.flower.core.impl.flows.AsyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.DagSyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.FusedSyncFlow;
+import com.github.xdcrafts.flower.core.impl.flows.StagedFlow;
+import com.github.xdcrafts.flower.core.impl.ring.RingActor;
+import com.github.xdcrafts.flower.core.impl.selectors.KeywordSelector;
+import com.github.xdcrafts.flower.core.spring.example.Roles;
+import com.github.xdcrafts.flower.core.spring.example.User;
 import com.github.xdcrafts.flower.core.spring.example.email.EmailSender;
 import com.github.xdcrafts.flower.core.spring.example.sms.SmsSender;
+import com.github.xdcrafts.flower.tools.WithMeta;
 import org.springframework.test.context.ActiveProfiles;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.github.xdcrafts.flower.tools.map.MapDotApi.dotGetUnsafe;
 import static com.github.xdcrafts.flower.tools.map.MapDsl.with;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -47,9 +69,33 @@ public class SpringIntegrationTest {
     @Autowired
     private Flow mainFlow;
     @Autowired
+    private Flow receiveFlow;
+    @Autowired
+    private Flow receiveAndAcknowledgeFlow;
+    @Autowired
+    private Flow acknowledgeAndStampFlow;
+    @Autowired
+    private Flow greetFlow;
+    @Autowired
+    private StagedFlow stagedFlow;
+    @Autowired
+    private Flow awaitReceiveFlow;
+    @Autowired
+    private KeywordSelector notificationSelector;
+    @Autowired
     private EmailSender emailSender;
     @Autowired
+    @Qualifier("sms.Sender")
     private SmsSender smsSender;
+    @Autowired
+    @Qualifier("sms.Flow")
+    private Flow smsFlow;
+    @Autowired
+    @Qualifier("sms.FusedFlow")
+    private Flow fusedSmsFlow;
+    @Autowired
+    @Qualifier("sms.FusedSender")
+    private SmsSender fusedSmsSender;
 
     @Test
     public void smsTest() throws ExecutionException, InterruptedException {
@@ -64,6 +110,19 @@ public class SpringIntegrationTest {
         assertEquals(1, this.smsSender.getRequestsSent());
     }
 
+    @Test
+    public void fusedSmsFlowTest() {
+        assertFalse(smsFlow instanceof FusedSyncFlow);
+        assertTrue(fusedSmsFlow instanceof FusedSyncFlow);
+        final Map request = with(new HashMap())
+            .dotAssoc("auth.user", new User("sms-user", "sms@example.com", "pwd", Arrays.asList(Roles.SMS)))
+            .dotAssoc("number", "+78005555555")
+            .dotAssoc("text", "spam")
+            .value();
+        assertEquals("spam", fusedSmsFlow.apply(request).get("text"));
+        assertEquals(1, this.fusedSmsSender.getRequestsSent());
+    }
+
     @Test
     public void emailTest() throws ExecutionException, InterruptedException {
         final Map request = with(new HashMap())
@@ -77,4 +136,94 @@ public class SpringIntegrationTest {
         assertTrue(dotGetUnsafe(response, Boolean.class, "processed"));
         assertEquals(1, this.emailSender.getRequestsSent());
     }
+
+    @Test
+    public void asyncFlowTest() throws ExecutionException, InterruptedException {
+        final Map response = receiveFlow.applyAsync(with(new HashMap()).assoc("text", "spam").value())
+            .toCompletableFuture()
+            .get();
+        assertTrue(dotGetUnsafe(response, Boolean.class, "processed"));
+    }
+
+    @Test
+    public void parallelFlowTest() {
+        final Map response = receiveAndAcknowledgeFlow.apply(with(new HashMap()).assoc("text", "spam").value());
+        assertTrue(dotGetUnsafe(response, Boolean.class, "processed"));
+        assertTrue(dotGetUnsafe(response, Boolean.class, "acknowledged"));
+        assertEquals("spam", dotGetUnsafe(response, String.class, "data.text"));
+    }
+
+    @Test
+    public void dagFlowTest() {
+        assertEquals(1, ((DagSyncFlow) acknowledgeAndStampFlow).size());
+        final Map response = acknowledgeAndStampFlow.apply(with(new HashMap()).assoc("text", "spam").value());
+        assertTrue(dotGetUnsafe(response, Boolean.class, "acknowledged"));
+        assertTrue(dotGetUnsafe(response, Boolean.class, "stamped"));
+        assertEquals("spam", dotGetUnsafe(response, String.class, "text"));
+    }
+
+    @Test
+    public void parallelSelectorTest() {
+        assertEquals(KeywordSelector.ExecutionPolicy.PARALLEL, notificationSelector.getExecutionPolicy());
+    }
+
+    @Test
+    public void forEachFlowTest() {
+        final Map response = greetFlow.apply(
+            with(new HashMap()).assoc("recipients", Arrays.asList("Alice", "Bob")).value()
+        );
+        assertEquals(Arrays.asList("Hello, Alice", "Hello, Bob"), response.get("greetings"));
+    }
+
+    @Test
+    public void stagedFlowTest() {
+        final Map response = stagedFlow.apply(with(new HashMap()).assoc("text", "spam").value());
+        assertTrue(dotGetUnsafe(response, Boolean.class, "processed"));
+        assertTrue(dotGetUnsafe(response, Boolean.class, "data.acknowledged"));
+        assertTrue(dotGetUnsafe(response, Boolean.class, "data.stamped"));
+        final List<StagedFlow.StageStats> stats = stagedFlow.stats();
+        assertEquals(2, stats.size());
+        assertEquals("mark", stats.get(0).name());
+        assertEquals(2, stats.get(0).threads());
+        assertEquals(64, stats.get(0).capacity());
+        assertEquals(1, stats.get(1).threads());
+        assertEquals(1, stats.get(1).serviceMicros().count());
+    }
+
+    @Test
+    public void ringActorCloseTest() throws InterruptedException {
+        final GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBeanDefinition("ringActor", BeanDefinitionBuilder
+            .genericBeanDefinition(RingActor.class)
+            .addConstructorArgValue("contextRing")
+            .addConstructorArgValue((Supplier<Map>) HashMap::new)
+            .addConstructorArgValue(Action.action("process", ctx -> with(ctx).assoc("processed", true).value()))
+            .addConstructorArgValue((Function<Map, Boolean>) ctx -> dotGetUnsafe(ctx, Boolean.class, "processed"))
+            .addConstructorArgValue(Collections.emptyMap())
+            .getBeanDefinition());
+        context.refresh();
+        final RingActor<Boolean> ringActor = context.getBean(RingActor.class);
+        assertTrue(ringActor.apply(ctx -> ctx.put("text", "spam")));
+        context.close();
+        assertTrue(
+            ringActor.applyAsync(ctx -> ctx.put("text", "spam")).toCompletableFuture().isCompletedExceptionally()
+        );
+    }
+
+    @Test
+    public void stepDefinitionTest() throws ExecutionException, InterruptedException {
+        final Action receive = awaitReceiveFlow.actions().get(0);
+        assertTrue(receive instanceof DelegatingAction);
+        assertTrue(((DelegatingAction) receive).action() == receiveFlow);
+        assertEquals("text", ((DelegatingAction) receive).meta().get(Core.ActionMeta.READS));
+        assertEquals(AsyncFlow.class.getName(), ((DelegatingAction) receive).meta().get(Core.ActionMeta.TYPE));
+        assertFalse(((WithMeta) receiveFlow).meta().containsKey(Core.ActionMeta.READS));
+        final Action await = awaitReceiveFlow.actions().get(1);
+        assertTrue(((DelegatingAction) await).action() instanceof AwaitAction);
+        assertEquals("data,processed", ((DelegatingAction) await).meta().get(Core.ActionMeta.WRITES));
+        final Map response = awaitReceiveFlow.applyAsync(with(new HashMap()).assoc("text", "spam").value())
+            .toCompletableFuture()
+            .get();
+        assertTrue(dotGetUnsafe(response, Boolean.class, "processed"));
+    }
 }
@@ -32,4 +32,22 @@ public class Receiver {
             .assoc("processed", true)
             .value();
     }
+
+    public Map acknowledge(Map request) {
+        return with(request)
+            .assoc("acknowledged", true)
+            .value();
+    }
+
+    public Map stamp(Map request) {
+        return with(request)
+            .assoc("stamped", true)
+            .value();
+    }
+
+    public Map greet(Map request) {
+        return with(request)
+            .assoc("greeting", "Hello, " + request.get("recipient"))
+            .value();
+    }
 }
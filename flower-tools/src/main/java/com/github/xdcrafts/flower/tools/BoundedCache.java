@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded concurrent cache. Reads are lock free, eviction uses CLOCK (second chance) order and new entries
+ * are admitted into a full cache only if they are requested more often than the eviction victim, according to
+ * an approximate frequency sketch (TinyLFU). So keys that are seen once do not push out hot entries and
+ * the cache never grows beyond its capacity whatever the number of distinct keys is.
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class BoundedCache<K, V> {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_FREQUENCY = 15;
+    private static final int SAMPLE_FACTOR = 10;
+    private static final int[] SEEDS = {0x97cb3127, 0x0a31bf7f, 0xc4ceb9fe, 0x4f9b8d2d};
+
+    private final int capacity;
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final Queue<Node<K, V>> clock;
+    private final ReentrantLock evictionLock;
+    private final int[] sketch;
+    private final int sketchMask;
+    private final int sampleSize;
+    private int sketchAdditions;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Cache entry with CLOCK reference bit.
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        volatile boolean referenced;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Creates cache that holds at most capacity entries, zero capacity disables caching.
+     * @param capacity maximum number of entries
+     */
+    public BoundedCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.map = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        this.clock = new ConcurrentLinkedQueue<>();
+        this.evictionLock = new ReentrantLock();
+        final int sketchSize = Integer.highestOneBit(Math.max(capacity, 1) * SKETCH_DEPTH - 1) << 1;
+        this.sketch = new int[Math.max(sketchSize, 2 * SKETCH_DEPTH)];
+        this.sketchMask = this.sketch.length - 1;
+        this.sampleSize = Math.max(capacity, 1) * SAMPLE_FACTOR;
+    }
+
+    /**
+     * Returns cached value or null if key is not cached.
+     * @param key key
+     * @return value or null
+     */
+    public V get(K key) {
+        recordAccess(key);
+        final Node<K, V> node = this.map.get(key);
+        if (node == null) {
+            this.misses.increment();
+            return null;
+        }
+        node.referenced = true;
+        this.hits.increment();
+        return node.value;
+    }
+
+    /**
+     * Returns cached value or computes it with function and tries to cache result.
+     * The function may be invoked concurrently for the same key, and computed value is returned
+     * even if it is not admitted into cache.
+     * @param key key
+     * @param function value function, must not return null
+     * @return value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        final V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final V value = function.apply(key);
+        if (this.capacity == 0) {
+            return value;
+        }
+        this.evictionLock.lock();
+        try {
+            final Node<K, V> existing = this.map.get(key);
+            if (existing != null) {
+                return existing.value;
+            }
+            if (this.map.size() >= this.capacity && !evictFor(key)) {
+                this.rejections.increment();
+                return value;
+            }
+            final Node<K, V> node = new Node<>(key, value);
+            this.map.put(key, node);
+            this.clock.offer(node);
+        } finally {
+            this.evictionLock.unlock();
+        }
+        return value;
+    }
+
+    /**
+     * Removes all entries, statistics are kept.
+     */
+    public void clear() {
+        this.evictionLock.lock();
+        try {
+            this.map.clear();
+            this.clock.clear();
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns current number of entries.
+     * @return size
+     */
+    public int size() {
+        return this.map.size();
+    }
+
+    /**
+     * Returns maximum number of entries.
+     * @return capacity
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns snapshot of cache statistics.
+     * @return statistics
+     */
+    public Stats stats() {
+        return new Stats(
+            this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.rejections.sum(), this.map.size()
+        );
+    }
+
+    /**
+     * Moves CLOCK hand to the first entry without reference bit and evicts it if candidate is more frequent.
+     * Must be called under eviction lock.
+     */
+    private boolean evictFor(K candidate) {
+        final int candidateFrequency = frequency(candidate);
+        Node<K, V> victim;
+        while ((victim = this.clock.poll()) != null) {
+            if (victim.referenced) {
+                victim.referenced = false;
+                this.clock.offer(victim);
+                continue;
+            }
+            if (candidateFrequency > frequency(victim.key)) {
+                this.map.remove(victim.key, victim);
+                this.evictions.increment();
+                return true;
+            }
+            this.clock.offer(victim);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Increments approximate frequency of key. Counters are updated without synchronization,
+     * lost updates only make estimation a bit less accurate.
+     */
+    private void recordAccess(K key) {
+        if (this.capacity == 0) {
+            return;
+        }
+        final int hash = spread(key.hashCode());
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            final int index = indexOf(hash, i);
+            if (this.sketch[index] < MAX_FREQUENCY) {
+                this.sketch[index]++;
+            }
+        }
+        if (++this.sketchAdditions >= this.sampleSize) {
+            age();
+        }
+    }
+
+    private int frequency(K key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SKETCH_DEPTH; i++) {
+            frequency = Math.min(frequency, this.sketch[indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Halves all counters so that sketch reflects recent popularity.
+     */
+    private void age() {
+        this.sketchAdditions = 0;
+        for (int i = 0; i < this.sketch.length; i++) {
+            this.sketch[i] >>>= 1;
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h & this.sketchMask;
+    }
+
+    private static int spread(int hash) {
+        final int h = hash * 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    /**
+     * Cache statistics snapshot.
+     */
+    public static final class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long rejections;
+        private final int size;
+
+        Stats(long hits, long misses, long evictions, long rejections, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.rejections = rejections;
+            this.size = size;
+        }
+
+        /**
+         * Number of lookups that found cached value.
+         * @return hits count
+         */
+        public long hits() {
+            return this.hits;
+        }
+
+        /**
+         * Number of lookups that did not find cached value.
+         * @return misses count
+         */
+        public long misses() {
+            return this.misses;
+        }
+
+        /**
+         * Number of entries evicted to make room for new ones.
+         * @return evictions count
+         */
+        public long evictions() {
+            return this.evictions;
+        }
+
+        /**
+         * Number of computed values that were not admitted into full cache.
+         * @return rejections count
+         */
+        public long rejections() {
+            return this.rejections;
+        }
+
+        /**
+         * Number of entries at the moment of snapshot.
+         * @return size
+         */
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{"
+                + "hits=" + hits
+                + ", misses=" + misses
+                + ", evictions=" + evictions
+                + ", rejections=" + rejections
+                + ", size=" + size
+                + '}';
+        }
+    }
+}
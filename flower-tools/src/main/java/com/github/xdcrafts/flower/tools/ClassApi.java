@@ -16,7 +16,11 @@
 
 package com.github.xdcrafts.flower.tools;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
@@ -27,14 +31,56 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Utility methods for Class.
+ * Reflection results are cached in ClassValue instances, so cached data is stored with classes themselves
+ * and does not prevent their class loaders from being unloaded.
  */
 @SuppressWarnings("unchecked")
 public final class ClassApi {
 
+    private static final MethodType NO_ARGS_CONSTRUCTOR = MethodType.methodType(void.class);
+
+    private static final ClassValue<Map<String, List<Method>>> DECLARED_METHODS =
+        new ClassValue<Map<String, List<Method>>>() {
+            @Override
+            protected Map<String, List<Method>> computeValue(Class<?> type) {
+                return Collections.unmodifiableMap(collectDeclaredMethodsRecursively(type));
+            }
+        };
+
+    private static final ClassValue<Map<String, Method>> RESOLVED_METHODS = new ClassValue<Map<String, Method>>() {
+        @Override
+        protected Map<String, Method> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Supplier<?>> INSTANCE_SUPPLIERS = new ClassValue<Supplier<?>>() {
+        @Override
+        protected Supplier<?> computeValue(Class<?> type) {
+            return createInstanceSupplier(type);
+        }
+    };
+
+    private static final ClassValue<Boolean> INSTANTIABLE = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isInstantiable(type);
+        }
+    };
+
+    private static final ClassValue<Map<Class<?>, Type[]>> ACTUAL_TYPE_ARGS = new ClassValue<Map<Class<?>, Type[]>>() {
+        @Override
+        protected Map<Class<?>, Type[]> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     private ClassApi() {
         // Nothing
     }
@@ -46,11 +92,69 @@ public final class ClassApi {
      * @return instance object
      */
     public static <T> T newInstance(final Class<T> clazz) {
+        return instanceSupplier(clazz).get();
+    }
+
+    /**
+     * Returns cached supplier that creates new instances of class with no-args constructor,
+     * rethrowing all exceptions in runtime.
+     * @param clazz type
+     * @param <T> class generic
+     * @return instance supplier
+     */
+    public static <T> Supplier<T> instanceSupplier(final Class<T> clazz) {
+        return (Supplier<T>) INSTANCE_SUPPLIERS.get(clazz);
+    }
+
+    /**
+     * Returns cached supplier that creates new instances of class if it is a public concrete class
+     * with public no-args constructor, otherwise returns fallback supplier.
+     * @param clazz type
+     * @param fallback supplier used for classes that can not be instantiated
+     * @param <T> class generic
+     * @return instance supplier
+     */
+    public static <T> Supplier<T> instanceSupplier(final Class<? extends T> clazz, final Supplier<T> fallback) {
+        return INSTANTIABLE.get(clazz) ? (Supplier<T>) INSTANCE_SUPPLIERS.get(clazz) : fallback;
+    }
+
+    private static boolean isInstantiable(final Class<?> clazz) {
+        if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+            return false;
+        }
         try {
-            return clazz.newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new ClassApiException(e);
+            MethodHandles.publicLookup().findConstructor(clazz, NO_ARGS_CONSTRUCTOR);
+            return true;
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return false;
+        }
+    }
+
+    private static Supplier<?> createInstanceSupplier(final Class<?> clazz) {
+        final MethodHandle constructor;
+        try {
+            constructor = MethodHandles
+                .publicLookup()
+                .findConstructor(clazz, NO_ARGS_CONSTRUCTOR)
+                .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return () -> {
+                try {
+                    return clazz.newInstance();
+                } catch (InstantiationException | IllegalAccessException ex) {
+                    throw new ClassApiException(ex);
+                }
+            };
         }
+        return () -> {
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new ClassApiException(t);
+            }
+        };
     }
 
     /**
@@ -114,17 +218,25 @@ public final class ClassApi {
 
     /**
      * Recursively collects all declared methods of the clazz and it's ancestors.
+     * Returned map is a copy, but lists of methods are shared with the cache and thus unmodifiable.
      */
     public static Map<String, List<Method>> getDeclaredMethodsRecursively(Class clazz) {
+        return new HashMap<>(DECLARED_METHODS.get(clazz));
+    }
+
+    private static Map<String, List<Method>> collectDeclaredMethodsRecursively(Class<?> clazz) {
         final Map<String, List<Method>> current = Arrays
             .stream(clazz.getDeclaredMethods())
             .filter(m -> !m.getName().startsWith("lambda"))
-            .collect(Collectors.groupingBy(Method::getName));
+            .collect(Collectors.groupingBy(
+                Method::getName,
+                Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList)
+            ));
         for (Class interfaceClazz : clazz.getInterfaces()) {
-            getDeclaredMethodsRecursively(interfaceClazz).forEach(current::putIfAbsent);
+            DECLARED_METHODS.get(interfaceClazz).forEach(current::putIfAbsent);
         }
         if (clazz.getSuperclass() != null) {
-            getDeclaredMethodsRecursively(clazz.getSuperclass()).forEach(current::putIfAbsent);
+            DECLARED_METHODS.get(clazz.getSuperclass()).forEach(current::putIfAbsent);
         }
         return current;
     }
@@ -133,8 +245,19 @@ public final class ClassApi {
      * Finds method with name, throws exception if no method found or there are many of them.
      */
     public static Method findMethod(Class clazz, String methodName) {
-        final List<Method> methods = getDeclaredMethodsRecursively(clazz).get(methodName);
-        if (methods.isEmpty()) {
+        final Map<String, Method> resolved = RESOLVED_METHODS.get(clazz);
+        final Method method = resolved.get(methodName);
+        if (method != null) {
+            return method;
+        }
+        final Method found = resolveMethod(clazz, methodName);
+        resolved.putIfAbsent(methodName, found);
+        return found;
+    }
+
+    private static Method resolveMethod(Class clazz, String methodName) {
+        final List<Method> methods = DECLARED_METHODS.get(clazz).get(methodName);
+        if (methods == null || methods.isEmpty()) {
             throw new IllegalArgumentException(clazz.getName() + "::" + methodName + " not found");
         }
         final List<Method> specificMethods;
@@ -165,6 +288,21 @@ public final class ClassApi {
      * type parameters will be used instead.
      */
     public static <T> Type[] resolveActualTypeArgs(Class<? extends T> offspring, Class<T> base, Type... actualArgs) {
+        if (offspring != null && base != null && actualArgs.length == 0) {
+            final Map<Class<?>, Type[]> resolved = ACTUAL_TYPE_ARGS.get(offspring);
+            Type[] result = resolved.get(base);
+            if (result == null) {
+                result = doResolveActualTypeArgs(offspring, base);
+                resolved.putIfAbsent(base, result);
+            }
+            return result.clone();
+        }
+        return doResolveActualTypeArgs(offspring, base, actualArgs);
+    }
+
+    private static <T> Type[] doResolveActualTypeArgs(
+        Class<? extends T> offspring, Class<T> base, Type... actualArgs
+    ) {
         if (offspring == null
             || base == null
             || (actualArgs.length != 0 && actualArgs.length != offspring.getTypeParameters().length)) {
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of non negative long values. Values below 8 are counted exactly, larger values are counted
+ * in log-linear buckets, eight per power of two, so percentiles are reported with at most 12.5% error.
+ * Recording is a few atomic increments and never allocates.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records value, negative values are recorded as zero.
+     * @param value value
+     */
+    public void record(long value) {
+        final long v = Math.max(value, 0);
+        this.counts.incrementAndGet(indexOf(v));
+        this.count.increment();
+        this.sum.add(v);
+        long current = this.max.get();
+        while (v > current && !this.max.compareAndSet(current, v)) {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * Returns snapshot of recorded values. Values recorded concurrently with snapshot may be partially reflected.
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        final long[] snapshotCounts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshotCounts[i] = this.counts.get(i);
+        }
+        return new Snapshot(snapshotCounts, this.count.sum(), this.sum.sum(), this.max.get());
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        final long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        final long bound = ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+        return bound < 0 ? Long.MAX_VALUE : bound;
+    }
+
+    /**
+     * Histogram snapshot.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Number of recorded values.
+         * @return count
+         */
+        public long count() {
+            return this.count;
+        }
+
+        /**
+         * Maximum recorded value.
+         * @return max
+         */
+        public long max() {
+            return this.max;
+        }
+
+        /**
+         * Mean of recorded values, zero if nothing is recorded.
+         * @return mean
+         */
+        public double mean() {
+            return this.count == 0 ? 0 : (double) this.sum / this.count;
+        }
+
+        /**
+         * Returns value that is not less than given fraction of recorded values, zero if nothing is recorded.
+         * @param quantile fraction of values from 0 to 1
+         * @return upper bound of bucket that contains quantile, never more than max
+         */
+        public long percentile(double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("Quantile should be from 0 to 1: " + quantile);
+            }
+            long total = 0;
+            for (long bucketCount : this.counts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{"
+                + "count=" + count
+                + ", mean=" + mean()
+                + ", p50=" + percentile(0.5)
+                + ", p99=" + percentile(0.99)
+                + ", max=" + max
+                + '}';
+        }
+    }
+}
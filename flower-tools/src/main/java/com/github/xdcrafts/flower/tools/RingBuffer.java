@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock free multi producer multi consumer queue on a ring of preallocated slots.
+ * Every slot has a sequence number that tells producers and consumers whose turn it is, so offer and poll
+ * take a single CAS of a cursor in common case, and neither of them ever blocks: offer returns false when ring
+ * is full and poll returns null when it is empty. Capacity is rounded up to a power of two.
+ * @param <E> element type
+ */
+public final class RingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final Cursor head = new Cursor();
+    private final Cursor tail = new Cursor();
+
+    /**
+     * Cursor padded to its own cache line, so producers and consumers do not contend on the same line.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cursor extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+        private long p1;
+        private long p2;
+        private long p3;
+        private long p4;
+        private long p5;
+        private long p6;
+        private long p7;
+    }
+
+    /**
+     * Creates ring that holds at least capacity elements.
+     * @param capacity minimum capacity
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Ring capacity should be from 1 to 2^30: " + capacity);
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds element to ring if it is not full.
+     * @param element element, not null
+     * @return true if element is added
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Element can not be null.");
+        }
+        long position = this.tail.get();
+        while (true) {
+            final int index = (int) position & this.mask;
+            final long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements[index] = element;
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            position = this.tail.get();
+        }
+    }
+
+    /**
+     * Takes the oldest element from ring.
+     * @return element or null if ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = this.head.get();
+        while (true) {
+            final int index = (int) position & this.mask;
+            final long difference = this.sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    final E element = (E) this.elements[index];
+                    this.elements[index] = null;
+                    this.sequences.lazySet(index, position + this.mask + 1);
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+            position = this.head.get();
+        }
+    }
+
+    /**
+     * Returns approximate number of elements, exact if ring is not changed concurrently.
+     * @return size
+     */
+    public int size() {
+        final long size = this.tail.get() - this.head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * Returns maximum number of elements.
+     * @return capacity
+     */
+    public int capacity() {
+        return this.mask + 1;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.tools.map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dot separated path that is parsed once and then used for any number of map operations.
+ * Unlike MapDotApi methods it does not split path string on each call, so it should be preferred
+ * for fixed keys on hot paths. Operations have the same semantics as corresponding MapDotApi methods.
+ */
+@SuppressWarnings("unchecked")
+public final class CompiledPath {
+
+    private static final String PATH_MUST_BE_SPECIFIED = "Path must be specified!";
+    private static final char SEPARATOR = '.';
+
+    private final String pathString;
+    private final Object[] path;
+    private final Object lastKey;
+
+    private CompiledPath(String pathString, Object[] path) {
+        this.pathString = pathString;
+        this.path = path;
+        this.lastKey = path[path.length - 1];
+    }
+
+    /**
+     * Parses dot separated path.
+     * @param pathString dot separated string with nodes of nested maps
+     * @return compiled path
+     */
+    public static CompiledPath compile(final String pathString) {
+        return new CompiledPath(pathString, split(pathString));
+    }
+
+    /**
+     * Splits dot separated path string into nodes, same way as String.split("\\.") does.
+     */
+    static String[] split(final String pathString) {
+        if (pathString == null || pathString.isEmpty()) {
+            throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
+        }
+        int separatorIndex = pathString.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return new String[] {pathString};
+        }
+        final List<String> nodes = new ArrayList<>();
+        int start = 0;
+        while (separatorIndex >= 0) {
+            nodes.add(pathString.substring(start, separatorIndex));
+            start = separatorIndex + 1;
+            separatorIndex = pathString.indexOf(SEPARATOR, start);
+        }
+        nodes.add(pathString.substring(start));
+        int size = nodes.size();
+        while (size > 0 && nodes.get(size - 1).isEmpty()) {
+            size--;
+        }
+        if (size == 0) {
+            throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
+        }
+        return nodes.subList(0, size).toArray(new String[size]);
+    }
+
+    /**
+     * Returns nodes of this path.
+     * @return copy of path nodes, from outermost map key to the last one
+     */
+    public Object[] path() {
+        return Arrays.copyOf(this.path, this.path.length);
+    }
+
+    /**
+     * Walks by map's nodes and extracts optional value of type T.
+     * @param <T> value type
+     * @param map subject
+     * @param clazz type of value
+     * @return optional value of type T
+     */
+    public <T> Optional<T> get(final Map map, final Class<T> clazz) {
+        return Optional.ofNullable(getNullable(map, clazz));
+    }
+
+    /**
+     * Get object value by path.
+     * @param map subject
+     * @return value
+     */
+    public Optional<Object> get(final Map map) {
+        return Optional.ofNullable(getNullable(map));
+    }
+
+    /**
+     * Walks by map's nodes and extracts value of type T or null.
+     * @param <T> value type
+     * @param map subject
+     * @param clazz type of value
+     * @return value of type T
+     */
+    public <T> T getNullable(final Map map, final Class<T> clazz) {
+        return (T) getNullable(map);
+    }
+
+    /**
+     * Get object value by path or null.
+     * @param map subject
+     * @return value
+     */
+    public Object getNullable(final Map map) {
+        if (this.path.length == 1) {
+            return map.get(this.lastKey);
+        }
+        final Map lastNode = MapApi.lastNode(map, this.path);
+        return lastNode == null ? null : lastNode.get(this.lastKey);
+    }
+
+    /**
+     * Walks by map's nodes and extracts value of type T, throws exception if there is no such value.
+     * @param <T> value type
+     * @param map subject
+     * @param clazz type of value
+     * @return value of type T
+     */
+    public <T> T getUnsafe(final Map map, final Class<T> clazz) {
+        final T value = getNullable(map, clazz);
+        if (value == null) {
+            throw new IllegalAccessError(
+                "Map "
+                + map
+                + " does not have value of type "
+                + clazz.getName()
+                + " by "
+                + this.pathString
+            );
+        }
+        return value;
+    }
+
+    /**
+     * Checks if this path exists in map.
+     * @param map subject
+     * @return boolean value
+     */
+    public boolean contains(final Map map) {
+        return getNullable(map) != null;
+    }
+
+    /**
+     * Associates new value in map placed at this path. New nodes are created with nodeClass if needed.
+     * @param map subject original map
+     * @param nodeClass class for intermediate nodes
+     * @param value new value
+     * @return original map
+     */
+    public Map assoc(final Map map, final Class<? extends Map> nodeClass, final Object value) {
+        if (value == null) {
+            return map;
+        }
+        if (map instanceof PersistentMap) {
+            return MapApi.assocPersistent(map, this.path, value);
+        }
+        if (this.path.length == 1) {
+            map.put(this.lastKey, value);
+        } else {
+            MapApi.lastNodeOrCreate(map, nodeClass, this.path).put(this.lastKey, value);
+        }
+        return map;
+    }
+
+    /**
+     * Associates new value in map placed at this path. New nodes are created with same class as map if needed.
+     * @param map subject original map
+     * @param value new value
+     * @return original map
+     */
+    public Map assoc(final Map map, final Object value) {
+        return assoc(map, map.getClass(), value);
+    }
+
+    /**
+     * Dissociates value placed at this path.
+     * @param map subject original map
+     * @return original map
+     */
+    public Map dissoc(final Map map) {
+        if (map instanceof PersistentMap) {
+            return MapApi.dissocPersistent(map, this.path);
+        }
+        final Map lastNode = this.path.length == 1 ? map : MapApi.lastNode(map, this.path);
+        if (lastNode != null) {
+            lastNode.remove(this.lastKey);
+        }
+        return map;
+    }
+
+    /**
+     * Associates new value placed at this path without modification of original map.
+     * @param map subject original map
+     * @param value new value
+     * @return new version of map or original map if value is null
+     */
+    public Map assocPersistent(final Map map, final Object value) {
+        return MapApi.assocPersistent(map, this.path, value);
+    }
+
+    /**
+     * Dissociates value placed at this path without modification of original map.
+     * @param map subject original map
+     * @return new version of map or original map if there is no value at this path
+     */
+    public Map dissocPersistent(final Map map) {
+        return MapApi.dissocPersistent(map, this.path);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(this.path, ((CompiledPath) o).path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.path);
+    }
+
+    @Override
+    public String toString() {
+        return this.pathString;
+    }
+}
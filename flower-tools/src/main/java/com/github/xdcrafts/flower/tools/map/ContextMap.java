@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact insertion ordered Map for small contexts.
+ * Entries are kept in parallel arrays of keys, values and hashes in order of insertion, without node object
+ * per entry. Maps with up to 8 entries are searched by linear scan over hashes, bigger maps have an index table
+ * with linear probing that points into entries arrays. Removed entries leave a mark that is dropped when arrays
+ * grow. Null keys and values are permitted. This class is not thread safe, contexts that are shared between
+ * threads (for example by AsyncFlow) should use concurrent maps.
+ * @param <K> key type
+ * @param <V> value type
+ */
+@SuppressWarnings("unchecked")
+public class ContextMap<K, V> extends AbstractMap<K, V> implements Cloneable {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int SCAN_THRESHOLD = 8;
+    private static final Object NULL_KEY = new Object();
+    private static final Object REMOVED = new Object();
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int[] index;
+    private int size;
+    private int used;
+    private int modCount;
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Creates empty map with room for 8 entries.
+     */
+    public ContextMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates empty map with room for given number of entries before it grows.
+     * @param capacity expected number of entries, must not be negative
+     */
+    public ContextMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        final int initial = Math.max(capacity, 1);
+        this.keys = new Object[initial];
+        this.values = new Object[initial];
+        this.hashes = new int[initial];
+        this.index = initial > SCAN_THRESHOLD ? new int[indexLength(initial)] : null;
+    }
+
+    /**
+     * Creates map with entries of given map, in its iteration order.
+     * @param map source of entries
+     */
+    public ContextMap(Map<? extends K, ? extends V> map) {
+        this(map.size());
+        putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(maskNull(key)) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < this.used; i++) {
+            if (this.keys[i] != REMOVED && eq(value, this.values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        final int i = find(maskNull(key));
+        return i < 0 ? null : (V) this.values[i];
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        final int i = find(maskNull(key));
+        return i < 0 ? defaultValue : (V) this.values[i];
+    }
+
+    @Override
+    public V put(K key, V value) {
+        final Object k = maskNull(key);
+        final int hash = hash(k);
+        final int i = find(k, hash);
+        if (i >= 0) {
+            final V previous = (V) this.values[i];
+            this.values[i] = value;
+            return previous;
+        }
+        append(k, hash, value);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        final int i = find(maskNull(key));
+        if (i < 0) {
+            return null;
+        }
+        final V previous = (V) this.values[i];
+        removeAt(i);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (this.used > 0) {
+            Arrays.fill(this.keys, 0, this.used, null);
+            Arrays.fill(this.values, 0, this.used, null);
+            if (this.index != null) {
+                Arrays.fill(this.index, 0);
+            }
+            this.size = 0;
+            this.used = 0;
+            this.modCount++;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (this.entrySet == null) {
+            this.entrySet = new EntrySet();
+        }
+        return this.entrySet;
+    }
+
+    @Override
+    public ContextMap<K, V> clone() {
+        try {
+            final ContextMap<K, V> copy = (ContextMap<K, V>) super.clone();
+            copy.keys = this.keys.clone();
+            copy.values = this.values.clone();
+            copy.hashes = this.hashes.clone();
+            copy.index = this.index == null ? null : this.index.clone();
+            copy.entrySet = null;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int find(Object key) {
+        return find(key, hash(key));
+    }
+
+    private int find(Object key, int hash) {
+        final Object[] currentKeys = this.keys;
+        final int[] currentHashes = this.hashes;
+        if (this.index == null) {
+            for (int i = 0; i < this.used; i++) {
+                if (currentHashes[i] == hash && eq(key, currentKeys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        final int[] currentIndex = this.index;
+        final int mask = currentIndex.length - 1;
+        int position = hash & mask;
+        while (true) {
+            final int slot = currentIndex[position];
+            if (slot == 0) {
+                return -1;
+            }
+            final int i = slot - 1;
+            if (currentHashes[i] == hash && eq(key, currentKeys[i])) {
+                return i;
+            }
+            position = (position + 1) & mask;
+        }
+    }
+
+    private void append(Object key, int hash, Object value) {
+        if (this.used == this.keys.length) {
+            grow();
+        }
+        final int i = this.used++;
+        this.keys[i] = key;
+        this.values[i] = value;
+        this.hashes[i] = hash;
+        if (this.index != null) {
+            insertIndex(this.index, hash, i);
+        }
+        this.size++;
+        this.modCount++;
+    }
+
+    private void removeAt(int i) {
+        this.keys[i] = REMOVED;
+        this.values[i] = null;
+        this.size--;
+        this.modCount++;
+        if (this.size == 0) {
+            clear();
+        }
+    }
+
+    /**
+     * Drops removed entries and, if there is still no room, doubles capacity. Index is rebuilt.
+     */
+    private void grow() {
+        final int capacity = this.size < this.keys.length * 3 / 4 ? this.keys.length : this.keys.length * 2;
+        final Object[] newKeys = new Object[capacity];
+        final Object[] newValues = new Object[capacity];
+        final int[] newHashes = new int[capacity];
+        int j = 0;
+        for (int i = 0; i < this.used; i++) {
+            if (this.keys[i] != REMOVED) {
+                newKeys[j] = this.keys[i];
+                newValues[j] = this.values[i];
+                newHashes[j] = this.hashes[i];
+                j++;
+            }
+        }
+        this.keys = newKeys;
+        this.values = newValues;
+        this.hashes = newHashes;
+        this.used = j;
+        if (capacity > SCAN_THRESHOLD) {
+            final int[] newIndex = new int[indexLength(capacity)];
+            for (int i = 0; i < j; i++) {
+                insertIndex(newIndex, newHashes[i], i);
+            }
+            this.index = newIndex;
+        } else {
+            this.index = null;
+        }
+    }
+
+    private static void insertIndex(int[] index, int hash, int i) {
+        final int mask = index.length - 1;
+        int position = hash & mask;
+        while (index[position] != 0) {
+            position = (position + 1) & mask;
+        }
+        index[position] = i + 1;
+    }
+
+    /**
+     * Index table is kept at most half full.
+     */
+    private static int indexLength(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static Object maskNull(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    private static Object unmaskNull(Object key) {
+        return key == NULL_KEY ? null : key;
+    }
+
+    private static int hash(Object key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == b || a != null && a.equals(b);
+    }
+
+    /**
+     * Entries view.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return ContextMap.this.size;
+        }
+
+        @Override
+        public void clear() {
+            ContextMap.this.clear();
+        }
+    }
+
+    /**
+     * Iterator over entries in insertion order.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private int next;
+        private int last = -1;
+        private int expectedModCount = ContextMap.this.modCount;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (this.next < ContextMap.this.used && ContextMap.this.keys[this.next] == REMOVED) {
+                this.next++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < ContextMap.this.used;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (ContextMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next++;
+            advance();
+            return new Entry(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            if (ContextMap.this.modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (ContextMap.this.size == 1) {
+                ContextMap.this.removeAt(this.last);
+                this.next = 0;
+            } else {
+                ContextMap.this.removeAt(this.last);
+            }
+            this.last = -1;
+            this.expectedModCount = ContextMap.this.modCount;
+        }
+    }
+
+    /**
+     * Entry that reads and writes through to map arrays.
+     */
+    private final class Entry implements Map.Entry<K, V> {
+
+        private final int i;
+
+        Entry(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public K getKey() {
+            return (K) unmaskNull(ContextMap.this.keys[this.i]);
+        }
+
+        @Override
+        public V getValue() {
+            return (V) ContextMap.this.values[this.i];
+        }
+
+        @Override
+        public V setValue(V value) {
+            final V previous = (V) ContextMap.this.values[this.i];
+            ContextMap.this.values[this.i] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry entry = (Map.Entry) o;
+            return eq(getKey(), entry.getKey()) && eq(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            final Object key = getKey();
+            final Object value = getValue();
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
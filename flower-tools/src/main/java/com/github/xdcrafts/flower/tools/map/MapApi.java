@@ -53,26 +53,8 @@ public final class MapApi {
         if (path == null || path.length == 0) {
             throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
         }
-        if (path.length == 1) {
-            return Optional.ofNullable((T) map.get(path[0]));
-        }
-        final Object[] pathToLastNode = Arrays.copyOfRange(path, 0, path.length - 1);
-        final Object lastKey = path[path.length - 1];
-        Map<Object, Object> intermediateMap = map;
-        for (Object key : pathToLastNode) {
-            final Object node = intermediateMap.get(key);
-            if (node != null) {
-                final Optional<Map> nodeMapOption = ClassApi.cast(node, Map.class);
-                if (nodeMapOption.isPresent()) {
-                    intermediateMap = nodeMapOption.get();
-                } else {
-                    throw new IllegalAccessError("Node with key '" + key + "' is not a map!");
-                }
-            } else {
-                return Optional.empty();
-            }
-        }
-        return Optional.ofNullable((T) intermediateMap.get(lastKey));
+        final Map lastNode = lastNode(map, path);
+        return lastNode == null ? Optional.empty() : Optional.ofNullable((T) lastNode.get(path[path.length - 1]));
     }
 
     /**
@@ -87,26 +69,8 @@ public final class MapApi {
         if (path == null || path.length == 0) {
             throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
         }
-        if (path.length == 1) {
-            return (T) map.get(path[0]);
-        }
-        final Object[] pathToLastNode = Arrays.copyOfRange(path, 0, path.length - 1);
-        final Object lastKey = path[path.length - 1];
-        Map<Object, Object> intermediateMap = map;
-        for (Object key : pathToLastNode) {
-            final Object node = intermediateMap.get(key);
-            if (node != null) {
-                final Optional<Map> nodeMapOption = ClassApi.cast(node, Map.class);
-                if (nodeMapOption.isPresent()) {
-                    intermediateMap = nodeMapOption.get();
-                } else {
-                    throw new IllegalAccessError("Node with key '" + key + "' is not a map!");
-                }
-            } else {
-                return null;
-            }
-        }
-        return (T) intermediateMap.get(lastKey);
+        final Map lastNode = lastNode(map, path);
+        return lastNode == null ? null : (T) lastNode.get(path[path.length - 1]);
     }
 
     /**
@@ -324,6 +288,7 @@ public final class MapApi {
 
     /**
      * Associates new value in map placed at path. New nodes are created with nodeClass if needed.
+     * If map is PersistentMap then it is not modified and its new version is returned, see assocPersistent.
      * @param map subject original map
      * @param nodeClass class for intermediate nodes
      * @param path nodes to walk in map path to place new value
@@ -339,23 +304,10 @@ public final class MapApi {
         if (value == null) {
             return map;
         }
-        if (path.length == 1) {
-            map.put(path[0], value);
-            return map;
+        if (map instanceof PersistentMap) {
+            return assocPersistent(map, path, 0, value);
         }
-        final Object[] pathToLastNode = Arrays.copyOfRange(path, 0, path.length - 1);
-        final Object lastKey = path[path.length - 1];
-        Map<Object, Object> intermediateMap = map;
-        for (Object key : pathToLastNode) {
-            final Object node = intermediateMap.computeIfAbsent(key, k -> ClassApi.newInstance(nodeClass));
-            final Optional<Map> nodeMapOption = ClassApi.cast(node, Map.class);
-            if (nodeMapOption.isPresent()) {
-                intermediateMap = nodeMapOption.get();
-            } else {
-                throw new IllegalAccessError("Node with key '" + key + "' is not a map!");
-            }
-        }
-        intermediateMap.put(lastKey, value);
+        lastNodeOrCreate(map, nodeClass, path).put(path[path.length - 1], value);
         return map;
     }
 
@@ -411,6 +363,7 @@ public final class MapApi {
 
     /**
      * Dissociates value by specified path.
+     * If map is PersistentMap then it is not modified and its new version is returned, see dissocPersistent.
      * @param map subject original map
      * @param path nodes to walk in map path of value
      * @return original map
@@ -419,27 +372,139 @@ public final class MapApi {
         if (path == null || path.length == 0) {
             throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
         }
-        if (path.length == 1) {
-            map.remove(path[0]);
+        if (map instanceof PersistentMap) {
+            return dissocPersistent(map, path, 0);
+        }
+        final Map lastNode = lastNode(map, path);
+        if (lastNode != null) {
+            lastNode.remove(path[path.length - 1]);
+        }
+        return map;
+    }
+
+    /**
+     * Associates new value placed at path without modification of original map.
+     * Map and every node on the path are replaced by their new PersistentMap versions, nodes that are
+     * not PersistentMap are copied, all other nodes are shared with original map.
+     * @param map subject original map
+     * @param path nodes to walk in map path to place new value
+     * @param value new value
+     * @return new version of map or original map if value is null
+     */
+    public static Map assocPersistent(final Map map, final Object[] path, final Object value) {
+        if (path == null || path.length == 0) {
+            throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
+        }
+        if (value == null) {
             return map;
         }
-        final Object[] pathToLastNode = Arrays.copyOfRange(path, 0, path.length - 1);
-        final Object lastKey = path[path.length - 1];
-        Map<Object, Object> intermediateMap = map;
-        for (Object key : pathToLastNode) {
-            final Object node = intermediateMap.get(key);
-            if (node != null) {
-                final Optional<Map> nodeMapOption = ClassApi.cast(node, Map.class);
-                if (nodeMapOption.isPresent()) {
-                    intermediateMap = nodeMapOption.get();
-                } else {
-                    throw new IllegalAccessError("Node with key '" + key + "' is not a map!");
+        return assocPersistent(map, path, 0, value);
+    }
+
+    /**
+     * Associates new value placed at path without modification of original map.
+     * @param map subject original map
+     * @param pathAndValue path to place new value and value at the end of this sequence
+     * @return new version of map or original map if value is null
+     */
+    public static Map assocPersistent(final Map map, final Object... pathAndValue) {
+        if (pathAndValue == null || pathAndValue.length < 1) {
+            throw new IllegalArgumentException(
+                "Path and value are required! Call it like: assocPersistent(Object[] path, Object value)");
+        }
+        return assocPersistent(
+            map,
+            Arrays.copyOfRange(pathAndValue, 0, pathAndValue.length - 1),
+            pathAndValue[pathAndValue.length - 1]
+        );
+    }
+
+    /**
+     * Dissociates value by specified path without modification of original map.
+     * Map and every node on the path are replaced by their new PersistentMap versions, nodes that are
+     * not PersistentMap are copied, all other nodes are shared with original map.
+     * @param map subject original map
+     * @param path nodes to walk in map path of value
+     * @return new version of map or original map if there is no value at path
+     */
+    public static Map dissocPersistent(final Map map, final Object... path) {
+        if (path == null || path.length == 0) {
+            throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
+        }
+        return dissocPersistent(map, path, 0);
+    }
+
+    private static PersistentMap assocPersistent(final Map node, final Object[] path, final int i, final Object value) {
+        final PersistentMap persistentNode = node == null ? PersistentMap.empty() : PersistentMap.copyOf(node);
+        if (i == path.length - 1) {
+            return persistentNode.assoc(path[i], value);
+        }
+        final Object child = persistentNode.get(path[i]);
+        if (child != null && !(child instanceof Map)) {
+            throw new IllegalAccessError("Node with key '" + path[i] + "' is not a map!");
+        }
+        return persistentNode.assoc(path[i], assocPersistent((Map) child, path, i + 1, value));
+    }
+
+    private static Map dissocPersistent(final Map node, final Object[] path, final int i) {
+        if (i == path.length - 1) {
+            return node.containsKey(path[i]) ? PersistentMap.copyOf(node).dissoc(path[i]) : node;
+        }
+        final Object child = node.get(path[i]);
+        if (child == null) {
+            return node;
+        }
+        if (!(child instanceof Map)) {
+            throw new IllegalAccessError("Node with key '" + path[i] + "' is not a map!");
+        }
+        final Map newChild = dissocPersistent((Map) child, path, i + 1);
+        return newChild == child ? node : PersistentMap.copyOf(node).assoc(path[i], newChild);
+    }
+
+    /**
+     * Walks by map's nodes down to the node that holds the last key of path.
+     * @param map subject
+     * @param path non empty path
+     * @return node map or null if some node on the way is absent
+     */
+    static Map lastNode(final Map map, final Object[] path) {
+        Map intermediateMap = map;
+        for (int i = 0; i < path.length - 1; i++) {
+            final Object node = intermediateMap.get(path[i]);
+            if (node == null) {
+                return null;
+            }
+            if (!(node instanceof Map)) {
+                throw new IllegalAccessError("Node with key '" + path[i] + "' is not a map!");
+            }
+            intermediateMap = (Map) node;
+        }
+        return intermediateMap;
+    }
+
+    /**
+     * Walks by map's nodes down to the node that holds the last key of path, creating absent nodes with nodeClass.
+     * @param map subject
+     * @param nodeClass class for intermediate nodes
+     * @param path non empty path
+     * @return node map
+     */
+    static Map lastNodeOrCreate(final Map map, final Class<? extends Map> nodeClass, final Object[] path) {
+        Map intermediateMap = map;
+        for (int i = 0; i < path.length - 1; i++) {
+            Object node = intermediateMap.get(path[i]);
+            if (node == null) {
+                final Map newNode = ClassApi.newInstance(nodeClass);
+                node = intermediateMap.putIfAbsent(path[i], newNode);
+                if (node == null) {
+                    node = newNode;
                 }
-            } else {
-                return map;
             }
+            if (!(node instanceof Map)) {
+                throw new IllegalAccessError("Node with key '" + path[i] + "' is not a map!");
+            }
+            intermediateMap = (Map) node;
         }
-        intermediateMap.remove(lastKey);
-        return map;
+        return intermediateMap;
     }
 }
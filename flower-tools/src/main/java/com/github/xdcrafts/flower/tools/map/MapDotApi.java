@@ -16,6 +16,8 @@
 
 package com.github.xdcrafts.flower.tools.map;
 
+import com.github.xdcrafts.flower.tools.BoundedCache;
+
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,13 +27,23 @@ import java.util.stream.Collectors;
 
 /**
  * Utility methods for Map with dot separated path notation.
+ * Parsed paths are kept in a bounded cache, its size is set by 'flower.map.path-cache.size' system property
+ * (1024 by default, 0 disables caching).
  */
 @SuppressWarnings("unchecked")
 public final class MapDotApi {
 
     private static final String PATH_MUST_BE_SPECIFIED = "Path must be specified!";
     private static final String SEPARATOR = ".";
-    private static final String SEPARATOR_REGEX = "\\.";
+
+    /**
+     * System property with maximum number of cached parsed paths.
+     */
+    public static final String PATH_CACHE_SIZE_PROPERTY = "flower.map.path-cache.size";
+    private static final int DEFAULT_PATH_CACHE_SIZE = 1024;
+    private static final BoundedCache<String, CompiledPath> PATH_CACHE = new BoundedCache<>(
+        Integer.getInteger(PATH_CACHE_SIZE_PROPERTY, DEFAULT_PATH_CACHE_SIZE)
+    );
 
     /**
      * Private constructor.
@@ -40,6 +52,18 @@ public final class MapDotApi {
         // nothing
     }
 
+    /**
+     * Returns statistics of parsed paths cache.
+     * @return cache statistics
+     */
+    public static BoundedCache.Stats pathCacheStats() {
+        return PATH_CACHE.stats();
+    }
+
+    private static CompiledPath compiledPath(final String pathString) {
+        return PATH_CACHE.computeIfAbsent(pathString, CompiledPath::compile);
+    }
+
     /**
      * Walks by map's nodes and extracts optional value of type T.
      * @param <T> value type
@@ -55,8 +79,7 @@ public final class MapDotApi {
         if (!pathString.contains(SEPARATOR)) {
             return Optional.ofNullable((T) map.get(pathString));
         }
-        final Object[] path = pathString.split(SEPARATOR_REGEX);
-        return MapApi.get(map, clazz, path);
+        return compiledPath(pathString).get(map, clazz);
     }
 
     /**
@@ -74,8 +97,7 @@ public final class MapDotApi {
         if (!pathString.contains(SEPARATOR)) {
             return (T) map.get(pathString);
         }
-        final Object[] path = pathString.split(SEPARATOR_REGEX);
-        return MapApi.getUnsafe(map, clazz, path);
+        return compiledPath(pathString).getNullable(map, clazz);
     }
 
     /**
@@ -314,11 +336,11 @@ public final class MapDotApi {
         if (value == null) {
             return map;
         }
-        if (!pathString.contains(SEPARATOR)) {
+        if (!pathString.contains(SEPARATOR) && !(map instanceof PersistentMap)) {
             map.put(pathString, value);
             return map;
         }
-        return MapApi.assoc(map, nodeClass, pathString.split(SEPARATOR_REGEX), value);
+        return compiledPath(pathString).assoc(map, nodeClass, value);
     }
 
     /**
@@ -343,11 +365,37 @@ public final class MapDotApi {
         if (pathString == null || pathString.isEmpty()) {
             throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
         }
-        if (!pathString.contains(SEPARATOR)) {
+        if (!pathString.contains(SEPARATOR) && !(map instanceof PersistentMap)) {
             map.remove(pathString);
             return map;
         }
-        final Object[] path = pathString.split(SEPARATOR_REGEX);
-        return MapApi.dissoc(map, path);
+        return compiledPath(pathString).dissoc(map);
+    }
+
+    /**
+     * Associates new value placed at path without modification of original map.
+     * @param map subject original map
+     * @param pathString nodes to walk in map path to place new value
+     * @param value new value
+     * @return new version of map or original map if value is null
+     */
+    public static Map dotAssocPersistent(final Map map, final String pathString, final Object value) {
+        if (pathString == null || pathString.isEmpty()) {
+            throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
+        }
+        return compiledPath(pathString).assocPersistent(map, value);
+    }
+
+    /**
+     * Dissociates value by specified path without modification of original map.
+     * @param map subject original map
+     * @param pathString nodes to walk in map path of value
+     * @return new version of map or original map if there is no value at path
+     */
+    public static Map dotDissocPersistent(final Map map, final String pathString) {
+        if (pathString == null || pathString.isEmpty()) {
+            throw new IllegalArgumentException(PATH_MUST_BE_SPECIFIED);
+        }
+        return compiledPath(pathString).dissocPersistent(map);
     }
 }
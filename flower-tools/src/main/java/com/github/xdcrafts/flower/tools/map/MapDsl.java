@@ -47,12 +47,12 @@ public final class MapDsl {
     }
 
     /**
-     * Wrapper over map that performs mutable api operations.
+     * Wrapper over map that performs mutable api operations. PersistentMap is replaced by its new versions.
      */
     public static final class MapOperator {
 
         private final Class<? extends Map> nodeClass;
-        private final Map map;
+        private Map map;
 
         private MapOperator(final Map map, final Class<? extends Map> nodeClass) {
             this.map = map;
@@ -65,7 +65,7 @@ public final class MapDsl {
          * @return operator
          */
         public MapOperator assoc(final Object... pathAndValue) {
-            MapApi.assoc(this.map, this.nodeClass, pathAndValue);
+            this.map = MapApi.assoc(this.map, this.nodeClass, pathAndValue);
             return this;
         }
 
@@ -76,7 +76,7 @@ public final class MapDsl {
          * @return operator
          */
         public MapOperator dotAssoc(final String pathString, Object value) {
-            MapDotApi.dotAssoc(this.map, this.nodeClass, pathString, value);
+            this.map = MapDotApi.dotAssoc(this.map, this.nodeClass, pathString, value);
             return this;
         }
 
@@ -86,7 +86,7 @@ public final class MapDsl {
          * @return operator
          */
         public MapOperator dissoc(final Object... path) {
-            MapApi.dissoc(this.map, path);
+            this.map = MapApi.dissoc(this.map, path);
             return this;
         }
 
@@ -96,7 +96,7 @@ public final class MapDsl {
          * @return operator
          */
         public MapOperator dotDissoc(final String pathString) {
-            MapDotApi.dotDissoc(this.map, pathString);
+            this.map = MapDotApi.dotDissoc(this.map, pathString);
             return this;
         }
 
@@ -0,0 +1,579 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable Map implemented as hash array mapped trie.
+ * Each trie level consumes 5 bits of key's hash, so 'assoc' and 'dissoc' take O(log32 n) and return new version
+ * of map that shares all untouched nodes with the original one. Mutating methods of Map interface throw
+ * UnsupportedOperationException. Null keys and values are permitted.
+ * Being immutable, instance can be safely shared between threads, snapshot of such map is just a reference.
+ * @param <K> key type
+ * @param <V> value type
+ */
+@SuppressWarnings("unchecked")
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_DEPTH = 8;
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentMap EMPTY = new PersistentMap(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns empty persistent map.
+     * @param <K> key type
+     * @param <V> value type
+     * @return empty map
+     */
+    public static <K, V> PersistentMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns persistent map with the same entries as supplied map, persistent map is returned as is.
+     * Nested maps are not converted.
+     * @param <K> key type
+     * @param <V> value type
+     * @param map source map
+     * @return persistent map
+     */
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap<K, V>) map;
+        }
+        PersistentMap<K, V> result = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.assoc(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns persistent map with the same entries as supplied map, nested maps are converted recursively.
+     * @param map source map
+     * @return persistent map
+     */
+    public static PersistentMap deepCopyOf(Map map) {
+        PersistentMap result = map instanceof PersistentMap ? (PersistentMap) map : empty();
+        for (Map.Entry entry : (Set<Map.Entry>) map.entrySet()) {
+            final Object value = entry.getValue();
+            if (value instanceof Map && !(value instanceof PersistentMap)) {
+                result = result.assoc(entry.getKey(), deepCopyOf((Map) value));
+            } else if (result != map) {
+                result = result.assoc(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns map with key associated with value. If map already has this mapping then it is returned as is.
+     * @param key key
+     * @param value value
+     * @return new version of map
+     */
+    public PersistentMap<K, V> assoc(K key, V value) {
+        final Added added = new Added();
+        final Node newRoot = this.root.assoc(key, value, hash(key), 0, added);
+        if (newRoot == this.root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, added.value ? this.size + 1 : this.size);
+    }
+
+    /**
+     * Returns map without key. If there is no such key then map is returned as is.
+     * @param key key
+     * @return new version of map
+     */
+    public PersistentMap<K, V> dissoc(Object key) {
+        final Node newRoot = this.root.dissoc(key, hash(key), 0);
+        if (newRoot == this.root) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, this.size - 1);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public V get(Object key) {
+        final Object value = this.root.find(key, hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        final Object value = this.root.find(key, hash(key), 0);
+        return value == NOT_FOUND ? defaultValue : (V) value;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (this.entrySet == null) {
+            this.entrySet = new EntrySet();
+        }
+        return this.entrySet;
+    }
+
+    private static int hash(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == b || a != null && a.equals(b);
+    }
+
+    private static int fragment(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    /**
+     * Creates node holding two entries with different keys.
+     */
+    private static Node merge(Object key1, Object value1, int hash1, Object key2, Object value2, int hash2, int shift) {
+        if (hash1 == hash2) {
+            return new CollisionNode(hash1, new Object[] {key1, key2}, new Object[] {value1, value2});
+        }
+        final int fragment1 = fragment(hash1, shift);
+        final int fragment2 = fragment(hash2, shift);
+        if (fragment1 == fragment2) {
+            final Node node = merge(key1, value1, hash1, key2, value2, hash2, shift + BITS);
+            return new BitmapNode(0, 1 << fragment1, new Object[] {node});
+        }
+        final Object[] content = fragment1 < fragment2
+            ? new Object[] {key1, value1, key2, value2}
+            : new Object[] {key2, value2, key1, value1};
+        return new BitmapNode((1 << fragment1) | (1 << fragment2), 0, content);
+    }
+
+    /**
+     * Flag set by assoc if new entry was added.
+     */
+    private static final class Added {
+        private boolean value;
+    }
+
+    /**
+     * Trie node.
+     */
+    private abstract static class Node {
+
+        abstract Object find(Object key, int hash, int shift);
+
+        abstract Node assoc(Object key, Object value, int hash, int shift, Added added);
+
+        abstract Node dissoc(Object key, int hash, int shift);
+
+        abstract int dataCount();
+
+        abstract Object key(int i);
+
+        abstract Object value(int i);
+
+        abstract int nodeCount();
+
+        abstract Node node(int i);
+
+        /**
+         * Node with single entry is inlined into its parent.
+         */
+        boolean isSingleEntry() {
+            return dataCount() == 1 && nodeCount() == 0;
+        }
+    }
+
+    /**
+     * Node with bitmaps of inlined entries and sub nodes. Content holds key and value pairs of entries
+     * followed by sub nodes, both in order of hash fragments.
+     */
+    private static final class BitmapNode extends Node {
+
+        private static final BitmapNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+        private final int dataMap;
+        private final int nodeMap;
+        private final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private static int index(int bitmap, int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private int nodeIndex(int bit) {
+            return 2 * Integer.bitCount(this.dataMap) + index(this.nodeMap, bit);
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            final int bit = 1 << fragment(hash, shift);
+            if ((this.dataMap & bit) != 0) {
+                final int i = 2 * index(this.dataMap, bit);
+                return eq(key, this.content[i]) ? this.content[i + 1] : NOT_FOUND;
+            }
+            if ((this.nodeMap & bit) != 0) {
+                return ((Node) this.content[nodeIndex(bit)]).find(key, hash, shift + BITS);
+            }
+            return NOT_FOUND;
+        }
+
+        @Override
+        Node assoc(Object key, Object value, int hash, int shift, Added added) {
+            final int bit = 1 << fragment(hash, shift);
+            if ((this.dataMap & bit) != 0) {
+                final int i = 2 * index(this.dataMap, bit);
+                final Object existingKey = this.content[i];
+                if (eq(key, existingKey)) {
+                    if (this.content[i + 1] == value) {
+                        return this;
+                    }
+                    final Object[] newContent = this.content.clone();
+                    newContent[i + 1] = value;
+                    return new BitmapNode(this.dataMap, this.nodeMap, newContent);
+                }
+                added.value = true;
+                final Node node = merge(
+                    existingKey, this.content[i + 1], hash(existingKey), key, value, hash, shift + BITS
+                );
+                return migrateToNode(bit, i, node);
+            }
+            if ((this.nodeMap & bit) != 0) {
+                final int i = nodeIndex(bit);
+                final Node node = (Node) this.content[i];
+                final Node newNode = node.assoc(key, value, hash, shift + BITS, added);
+                if (newNode == node) {
+                    return this;
+                }
+                final Object[] newContent = this.content.clone();
+                newContent[i] = newNode;
+                return new BitmapNode(this.dataMap, this.nodeMap, newContent);
+            }
+            added.value = true;
+            final int i = 2 * index(this.dataMap, bit);
+            final Object[] newContent = new Object[this.content.length + 2];
+            System.arraycopy(this.content, 0, newContent, 0, i);
+            newContent[i] = key;
+            newContent[i + 1] = value;
+            System.arraycopy(this.content, i, newContent, i + 2, this.content.length - i);
+            return new BitmapNode(this.dataMap | bit, this.nodeMap, newContent);
+        }
+
+        @Override
+        Node dissoc(Object key, int hash, int shift) {
+            final int bit = 1 << fragment(hash, shift);
+            if ((this.dataMap & bit) != 0) {
+                final int i = 2 * index(this.dataMap, bit);
+                if (!eq(key, this.content[i])) {
+                    return this;
+                }
+                final Object[] newContent = new Object[this.content.length - 2];
+                System.arraycopy(this.content, 0, newContent, 0, i);
+                System.arraycopy(this.content, i + 2, newContent, i, this.content.length - i - 2);
+                return new BitmapNode(this.dataMap ^ bit, this.nodeMap, newContent);
+            }
+            if ((this.nodeMap & bit) != 0) {
+                final int i = nodeIndex(bit);
+                final Node node = (Node) this.content[i];
+                final Node newNode = node.dissoc(key, hash, shift + BITS);
+                if (newNode == node) {
+                    return this;
+                }
+                if (newNode.isSingleEntry()) {
+                    return migrateToData(bit, i, newNode.key(0), newNode.value(0));
+                }
+                final Object[] newContent = this.content.clone();
+                newContent[i] = newNode;
+                return new BitmapNode(this.dataMap, this.nodeMap, newContent);
+            }
+            return this;
+        }
+
+        /**
+         * Replaces entry at data index with sub node.
+         */
+        private Node migrateToNode(int bit, int dataIndex, Node node) {
+            final int newDataMap = this.dataMap ^ bit;
+            final int newNodeMap = this.nodeMap | bit;
+            final int nodeIndex = 2 * Integer.bitCount(newDataMap) + index(newNodeMap, bit);
+            final Object[] newContent = new Object[this.content.length - 1];
+            System.arraycopy(this.content, 0, newContent, 0, dataIndex);
+            System.arraycopy(this.content, dataIndex + 2, newContent, dataIndex, nodeIndex - dataIndex);
+            newContent[nodeIndex] = node;
+            System.arraycopy(
+                this.content, nodeIndex + 2, newContent, nodeIndex + 1, this.content.length - nodeIndex - 2
+            );
+            return new BitmapNode(newDataMap, newNodeMap, newContent);
+        }
+
+        /**
+         * Replaces sub node at node index with its single entry.
+         */
+        private Node migrateToData(int bit, int nodeIndex, Object key, Object value) {
+            final int newDataMap = this.dataMap | bit;
+            final int dataIndex = 2 * index(newDataMap, bit);
+            final Object[] newContent = new Object[this.content.length + 1];
+            System.arraycopy(this.content, 0, newContent, 0, dataIndex);
+            newContent[dataIndex] = key;
+            newContent[dataIndex + 1] = value;
+            System.arraycopy(this.content, dataIndex, newContent, dataIndex + 2, nodeIndex - dataIndex);
+            System.arraycopy(
+                this.content, nodeIndex + 1, newContent, nodeIndex + 2, this.content.length - nodeIndex - 1
+            );
+            return new BitmapNode(newDataMap, this.nodeMap ^ bit, newContent);
+        }
+
+        @Override
+        int dataCount() {
+            return Integer.bitCount(this.dataMap);
+        }
+
+        @Override
+        Object key(int i) {
+            return this.content[2 * i];
+        }
+
+        @Override
+        Object value(int i) {
+            return this.content[2 * i + 1];
+        }
+
+        @Override
+        int nodeCount() {
+            return Integer.bitCount(this.nodeMap);
+        }
+
+        @Override
+        Node node(int i) {
+            return (Node) this.content[2 * Integer.bitCount(this.dataMap) + i];
+        }
+    }
+
+    /**
+     * Node with entries which keys have the same hash.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int keyHash;
+        private final Object[] keys;
+        private final Object[] values;
+
+        CollisionNode(int keyHash, Object[] keys, Object[] values) {
+            this.keyHash = keyHash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < this.keys.length; i++) {
+                if (eq(key, this.keys[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            if (hash != this.keyHash) {
+                return NOT_FOUND;
+            }
+            final int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : this.values[i];
+        }
+
+        @Override
+        Node assoc(Object key, Object value, int hash, int shift, Added added) {
+            if (hash != this.keyHash) {
+                return new BitmapNode(0, 1 << fragment(this.keyHash, shift), new Object[] {this})
+                    .assoc(key, value, hash, shift, added);
+            }
+            final int i = indexOf(key);
+            if (i >= 0) {
+                if (this.values[i] == value) {
+                    return this;
+                }
+                final Object[] newValues = this.values.clone();
+                newValues[i] = value;
+                return new CollisionNode(this.keyHash, this.keys, newValues);
+            }
+            added.value = true;
+            final int length = this.keys.length;
+            final Object[] newKeys = new Object[length + 1];
+            final Object[] newValues = new Object[length + 1];
+            System.arraycopy(this.keys, 0, newKeys, 0, length);
+            System.arraycopy(this.values, 0, newValues, 0, length);
+            newKeys[length] = key;
+            newValues[length] = value;
+            return new CollisionNode(this.keyHash, newKeys, newValues);
+        }
+
+        @Override
+        Node dissoc(Object key, int hash, int shift) {
+            final int i = hash == this.keyHash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            final int length = this.keys.length - 1;
+            final Object[] newKeys = new Object[length];
+            final Object[] newValues = new Object[length];
+            System.arraycopy(this.keys, 0, newKeys, 0, i);
+            System.arraycopy(this.values, 0, newValues, 0, i);
+            System.arraycopy(this.keys, i + 1, newKeys, i, length - i);
+            System.arraycopy(this.values, i + 1, newValues, i, length - i);
+            return new CollisionNode(this.keyHash, newKeys, newValues);
+        }
+
+        @Override
+        int dataCount() {
+            return this.keys.length;
+        }
+
+        @Override
+        Object key(int i) {
+            return this.keys[i];
+        }
+
+        @Override
+        Object value(int i) {
+            return this.values[i];
+        }
+
+        @Override
+        int nodeCount() {
+            return 0;
+        }
+
+        @Override
+        Node node(int i) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * Entries view.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator(PersistentMap.this.root);
+        }
+
+        @Override
+        public int size() {
+            return PersistentMap.this.size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry entry = (Map.Entry) o;
+            final Object value = PersistentMap.this.root.find(entry.getKey(), hash(entry.getKey()), 0);
+            return value != NOT_FOUND && eq(value, entry.getValue());
+        }
+    }
+
+    /**
+     * Depth first iterator over trie entries.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final Node[] nodes = new Node[MAX_DEPTH];
+        private final int[] nodeCursors = new int[MAX_DEPTH];
+        private int depth;
+        private Node dataNode;
+        private int dataCursor;
+
+        EntryIterator(Node root) {
+            this.nodes[0] = root;
+            this.depth = 1;
+            this.dataNode = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.dataCursor >= this.dataNode.dataCount()) {
+                if (this.depth == 0) {
+                    return false;
+                }
+                final Node top = this.nodes[this.depth - 1];
+                if (this.nodeCursors[this.depth - 1] < top.nodeCount()) {
+                    final Node child = top.node(this.nodeCursors[this.depth - 1]++);
+                    this.nodes[this.depth] = child;
+                    this.nodeCursors[this.depth] = 0;
+                    this.depth++;
+                    this.dataNode = child;
+                    this.dataCursor = 0;
+                } else {
+                    this.depth--;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int i = this.dataCursor++;
+            return new SimpleImmutableEntry<>((K) this.dataNode.key(i), (V) this.dataNode.value(i));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BoundedCache tests.
+ */
+public class BoundedCacheTest {
+
+    @Test
+    public void test() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(2);
+        assertNull(cache.get("a"));
+        assertEquals("A", cache.computeIfAbsent("a", String::toUpperCase));
+        assertEquals("A", cache.computeIfAbsent("a", k -> "unexpected"));
+        assertEquals(1, cache.stats().hits());
+        assertEquals(2, cache.stats().misses());
+        cache.computeIfAbsent("b", String::toUpperCase);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void boundedTest() {
+        final BoundedCache<Integer, Integer> cache = new BoundedCache<>(16);
+        for (int hot = 0; hot < 8; hot++) {
+            for (int i = 0; i < 10; i++) {
+                cache.computeIfAbsent(hot, k -> k);
+            }
+        }
+        for (int i = 1000; i < 100000; i++) {
+            cache.computeIfAbsent(i % 8, k -> k);
+            cache.computeIfAbsent(i, k -> k);
+            assertTrue(cache.size() <= 16);
+        }
+        for (int hot = 0; hot < 8; hot++) {
+            assertEquals(Integer.valueOf(hot), cache.get(hot));
+        }
+        final BoundedCache.Stats stats = cache.stats();
+        assertTrue(stats.evictions() > 0);
+        assertTrue(stats.rejections() > 0);
+    }
+
+    @Test
+    public void disabledTest() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(0);
+        assertEquals("A", cache.computeIfAbsent("a", String::toUpperCase));
+        assertEquals(0, cache.size());
+    }
+}
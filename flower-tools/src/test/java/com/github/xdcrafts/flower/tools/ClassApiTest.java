@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ClassApi tests.
+ */
+public class ClassApiTest {
+
+    /**
+     * Function with resolved type arguments.
+     */
+    public static class Length implements Function<String, Integer> {
+        @Override
+        public Integer apply(String s) {
+            return s.length();
+        }
+    }
+
+    @Test
+    public void findMethodTest() {
+        assertSame(ClassApi.findMethod(HashMap.class, "size"), ClassApi.findMethod(HashMap.class, "size"));
+        assertEquals("size", ClassApi.findMethod(HashMap.class, "size").getName());
+        assertTrue(ClassApi.getDeclaredMethodsRecursively(HashMap.class).containsKey("putIfAbsent"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void declaredMethodsAreUnmodifiableTest() {
+        ClassApi.getDeclaredMethodsRecursively(HashMap.class).get("size").clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingMethodTest() {
+        ClassApi.findMethod(HashMap.class, "missing");
+    }
+
+    @Test
+    public void newInstanceTest() {
+        final Map first = ClassApi.newInstance(HashMap.class);
+        final Map second = ClassApi.instanceSupplier(HashMap.class).get();
+        assertTrue(first instanceof HashMap);
+        assertTrue(first != second);
+    }
+
+    @Test
+    public void fallbackInstanceTest() {
+        final Supplier<Map> fallback = HashMap::new;
+        assertTrue(ClassApi.instanceSupplier(TreeMap.class, fallback).get() instanceof TreeMap);
+        assertSame(fallback, ClassApi.instanceSupplier(Map.class, fallback));
+        assertSame(fallback, ClassApi.instanceSupplier(AbstractMap.class, fallback));
+        assertSame(fallback, ClassApi.instanceSupplier(Collections.emptyMap().getClass(), fallback));
+    }
+
+    @Test(expected = ClassApi.ClassApiException.class)
+    public void noConstructorTest() {
+        ClassApi.newInstance(Map.class);
+    }
+
+    @Test
+    public void resolveActualTypeArgsTest() {
+        final Type[] types = ClassApi.resolveActualTypeArgs(Length.class, Function.class);
+        assertArrayEquals(new Type[] {String.class, Integer.class}, types);
+        types[0] = Object.class;
+        assertArrayEquals(
+            new Type[] {String.class, Integer.class}, ClassApi.resolveActualTypeArgs(Length.class, Function.class)
+        );
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Histogram tests.
+ */
+public class HistogramTest {
+
+    @Test
+    public void test() {
+        final Histogram histogram = new Histogram();
+        assertEquals(0, histogram.snapshot().percentile(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        final Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(1000, snapshot.max());
+        assertEquals(500.5, snapshot.mean(), 0.001);
+        assertEquals(1, snapshot.percentile(0));
+        assertEquals(1000, snapshot.percentile(1));
+        final long median = snapshot.percentile(0.5);
+        assertTrue(median >= 500 && median <= 500 * 1.125);
+        final long p99 = snapshot.percentile(0.99);
+        assertTrue(p99 >= 990 && p99 <= 1000);
+    }
+
+    @Test
+    public void extremesTest() {
+        final Histogram histogram = new Histogram();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        final Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.percentile(0.5));
+        assertEquals(Long.MAX_VALUE, snapshot.percentile(1));
+    }
+}
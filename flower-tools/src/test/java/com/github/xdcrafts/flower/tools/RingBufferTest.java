@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * RingBuffer tests.
+ */
+public class RingBufferTest {
+
+    @Test
+    public void test() {
+        final RingBuffer<Integer> ring = new RingBuffer<>(3);
+        assertEquals(4, ring.capacity());
+        assertNull(ring.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+        assertEquals(Integer.valueOf(0), ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(Integer.valueOf(i), ring.poll());
+        }
+        assertNull(ring.poll());
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        final RingBuffer<Long> ring = new RingBuffer<>(64);
+        final int producers = 3;
+        final int consumers = 3;
+        final long perProducer = 100000;
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong consumed = new AtomicLong();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                for (long i = 1; i <= perProducer; i++) {
+                    while (!ring.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                while (consumed.get() < producers * perProducer) {
+                    final Long value = ring.poll();
+                    if (value == null) {
+                        Thread.yield();
+                    } else {
+                        sum.addAndGet(value);
+                        consumed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(producers * perProducer * (perProducer + 1) / 2, sum.get());
+        assertNull(ring.poll());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package com.github.xdcrafts.flower.tools.map;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CompiledPath tests.
+ */
+@SuppressWarnings("unchecked")
+public class CompiledPathTest {
+
+    @Test
+    public void splitTest() {
+        for (String path : new String[] {"a", "a.b", "a.b.c", "a..b", ".a", "a.", "a.b..", "..a"}) {
+            assertArrayEquals(path, path.split("\\."), CompiledPath.split(path));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPathTest() {
+        CompiledPath.compile("..");
+    }
+
+    @Test
+    public void test() {
+        final CompiledPath path = CompiledPath.compile("user.name.first");
+        final Map map = new HashMap();
+        assertNull(path.getNullable(map));
+        assertFalse(path.get(map).isPresent());
+        path.assoc(map, "John");
+        assertEquals("John", MapDotApi.dotGetUnsafe(map, "user.name.first"));
+        assertEquals("John", path.getUnsafe(map, String.class));
+        assertTrue(map.get("user") instanceof HashMap);
+        path.dissoc(map);
+        assertFalse(path.contains(map));
+        assertTrue(MapDotApi.dotContains(map, "user.name"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools.map;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ContextMap tests.
+ */
+@SuppressWarnings("unchecked")
+public class ContextMapTest {
+
+    @Test
+    public void test() {
+        final Map<String, Object> map = new ContextMap<>();
+        assertTrue(map.isEmpty());
+        for (int i = 0; i < 40; i++) {
+            assertNull(map.put("key" + i, i));
+        }
+        assertEquals(40, map.size());
+        assertEquals(7, map.get("key7"));
+        assertEquals(7, map.put("key7", "seven"));
+        assertEquals("seven", map.get("key7"));
+        assertEquals(20, map.remove("key20"));
+        assertFalse(map.containsKey("key20"));
+        assertNull(map.get("key20"));
+        assertEquals(39, map.size());
+        map.put(null, "null");
+        map.put("nullValue", null);
+        assertEquals("null", map.get(null));
+        assertTrue(map.containsKey("nullValue"));
+        assertTrue(map.containsValue(null));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("key1"));
+    }
+
+    @Test
+    public void orderTest() {
+        final Map<String, Object> map = new ContextMap<>();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            map.put("key" + i, i);
+            expected.add("key" + i);
+        }
+        map.remove("key3");
+        expected.remove("key3");
+        map.put("key3", 3);
+        expected.add("key3");
+        assertEquals(expected, new ArrayList<>(map.keySet()));
+        final Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Object> entry = iterator.next();
+            if ((Integer) entry.getValue() % 2 == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(-1);
+            }
+        }
+        assertEquals(6, map.size());
+        assertEquals(Arrays.asList(-1, -1, -1, -1, -1, -1), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    public void randomTest() {
+        final Random random = new Random(42);
+        final Map<Object, Object> expected = new LinkedHashMap<>();
+        final Map<Object, Object> map = new ContextMap<>(2);
+        for (int i = 0; i < 100000; i++) {
+            final Object key = random.nextInt(5) == 0 ? random.nextInt(100) : "key" + random.nextInt(60);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(expected, ((ContextMap) map).clone());
+    }
+
+    @Test
+    public void assocTest() {
+        final Map map = new ContextMap();
+        MapApi.assoc(map, "user", "name", "first", "John");
+        assertTrue(map.get("user") instanceof ContextMap);
+        assertEquals("John", MapDotApi.dotGetUnsafe(map, "user.name.first"));
+    }
+}
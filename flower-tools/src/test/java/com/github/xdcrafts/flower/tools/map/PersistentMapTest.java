@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Vadim Dubs https://github.com/xdcrafts
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+
+package com.github.xdcrafts.flower.tools.map;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * PersistentMap tests.
+ */
+@SuppressWarnings("unchecked")
+public class PersistentMapTest {
+
+    /**
+     * Key with configurable hash code.
+     */
+    private static final class Key {
+        private final int hash;
+        private final int id;
+
+        Key(int hash, int id) {
+            this.hash = hash;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).hash == this.hash && ((Key) o).id == this.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    @Test
+    public void test() {
+        final PersistentMap<String, Object> empty = PersistentMap.empty();
+        final PersistentMap<String, Object> first = empty.assoc("a", 1).assoc("b", 2);
+        final PersistentMap<String, Object> second = first.assoc("a", 3).dissoc("b").assoc(null, "null");
+        assertTrue(empty.isEmpty());
+        assertEquals(2, first.size());
+        assertEquals(1, first.get("a"));
+        assertEquals(2, first.get("b"));
+        assertEquals(2, second.size());
+        assertEquals(3, second.get("a"));
+        assertFalse(second.containsKey("b"));
+        assertEquals("null", second.get(null));
+        assertSame(first, first.assoc("a", 1));
+        assertSame(first, first.dissoc("c"));
+        try {
+            first.put("c", 3);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertFalse(first.containsKey("c"));
+        }
+    }
+
+    @Test
+    public void randomTest() {
+        final Random random = new Random(42);
+        final Map<Object, Object> expected = new HashMap<>();
+        final List<Map<Object, Object>> expectedVersions = new ArrayList<>();
+        final List<PersistentMap<Object, Object>> versions = new ArrayList<>();
+        PersistentMap<Object, Object> map = PersistentMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            final Object key = random.nextBoolean()
+                ? new Key(random.nextInt(8) << random.nextInt(32), random.nextInt(4))
+                : random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.dissoc(key);
+            } else {
+                expected.put(key, i);
+                map = map.assoc(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+            if (i % 1000 == 0) {
+                expectedVersions.add(new HashMap<>(expected));
+                versions.add(map);
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected, new HashMap<>(map));
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i));
+        }
+        for (Object key : new ArrayList<>(expected.keySet())) {
+            map = map.dissoc(key);
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void pathTest() {
+        final Map original = new HashMap();
+        MapApi.assoc(original, "user", "name", "John");
+        final Map first = MapApi.assocPersistent(original, "user", "age", 42);
+        assertTrue(first instanceof PersistentMap);
+        assertNull(MapApi.getNullable(original, "user", "age"));
+        assertEquals(42, MapApi.getUnsafe(first, "user", "age"));
+        final Map second = MapDotApi.dotAssoc(first, "user.address.city", "London");
+        assertEquals("London", MapDotApi.dotGetUnsafe(second, "user.address.city"));
+        assertFalse(MapDotApi.dotContains(first, "user.address"));
+        final Map third = MapDotApi.dotDissocPersistent(second, "user.name");
+        assertEquals("John", MapDotApi.dotGetUnsafe(second, "user.name"));
+        assertFalse(MapDotApi.dotContains(third, "user.name"));
+        assertSame(third, MapApi.dissoc(third, "user", "name"));
+        assertSame(
+            MapApi.getUnsafe(second, "user", "address"),
+            MapApi.getUnsafe(third, "user", "address")
+        );
+        final Map fourth = MapDsl.with(PersistentMap.empty()).assoc("a", "b", 1).dotAssoc("a.c", 2).value();
+        assertEquals(1, MapDotApi.dotGetUnsafe(fourth, "a.b"));
+        assertEquals(2, MapDotApi.dotGetUnsafe(fourth, "a.c"));
+        final Map deep = PersistentMap.deepCopyOf(original);
+        assertTrue(deep.get("user") instanceof PersistentMap);
+        assertEquals(original, deep);
+    }
+}